@@ -33,6 +33,11 @@ android {
     sourceSets {
         getByName("main").res.srcDirs("src/main/res")
     }
+
+    testOptions {
+        // Local unit tests run against the android.jar stubs; let android.util.Log and friends no-op
+        unitTests.isReturnDefaultValues = true
+    }
 }
 
 dependencies {
@@ -41,6 +46,9 @@ dependencies {
     implementation("com.android.volley:volley:1.2.1")
     implementation("androidx.appcompat:appcompat:1.6.1")
     implementation("com.google.android.material:material:1.10.0")
+    implementation("androidx.recyclerview:recyclerview:1.3.2")
+    implementation("androidx.asynclayoutinflater:asynclayoutinflater:1.0.0")
+    implementation("androidx.work:work-runtime:2.8.1")
     implementation("org.json:json:20210307")
     testImplementation("junit:junit:4.13.2")
     androidTestImplementation("androidx.test.ext:junit:1.1.5")
@@ -0,0 +1,169 @@
+/**
+ * ArtistAdapterAllocationTest.java
+ * Function: Instrumented test that scrolls a long artist list whose thumbnails are already
+ * decoded and checks that binding rows allocates nothing on the main thread.
+ *
+ * @author Lorenz Aparentado
+ * @since 2023-12
+ */
+package com.example.spotifyartistexplorer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.app.Instrumentation;
+import android.graphics.Bitmap;
+import android.os.Debug;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(AndroidJUnit4.class)
+public class ArtistAdapterAllocationTest {
+
+    private static final String TAG = "ArtistAdapterAllocation";
+
+    private static final int ARTIST_COUNT = 2000;
+    private static final int THUMBNAIL_COUNT = 200;
+    private static final int SCROLL_STEP_PX = 97;
+
+    /**
+     * Allocations allowed on the main thread inside onBindViewHolder during the measured scroll.
+     */
+    private static final long MAX_BIND_ALLOCATIONS = 0;
+
+    /**
+     * Minimum number of binds the measured scroll must perform for the result to mean anything.
+     */
+    private static final int MIN_MEASURED_BINDS = 500;
+
+    /**
+     * Scrolls once through the list to warm up the row pool and each artist's cached strings,
+     * then scrolls through it again while counting the allocations made by each bind.
+     */
+    @Test
+    @SuppressWarnings("deprecation")
+    public void steadyStateScroll_bindsWithoutAllocating() {
+        Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        try (ActivityScenario<MainActivity> scenario = ActivityScenario.launch(MainActivity.class)) {
+            RecyclerView[] recyclerView = new RecyclerView[1];
+            CountingAdapter[] adapter = new CountingAdapter[1];
+            scenario.onActivity(activity -> {
+                TieredImageCache imageCache = ((ArtistExplorerApplication) activity.getApplication()).getImageCache();
+                adapter[0] = new CountingAdapter(createArtists(imageCache), activity.getArtistRowViewPool());
+                recyclerView[0] = new RecyclerView(activity);
+                recyclerView[0].setLayoutManager(new LinearLayoutManager(activity));
+                recyclerView[0].setRecycledViewPool(activity.getArtistRowViewPool().getRecycledViewPool());
+                recyclerView[0].setAdapter(adapter[0]);
+                activity.setContentView(recyclerView[0]);
+            });
+            instrumentation.waitForIdleSync();
+
+            scrollToEnd(instrumentation, recyclerView[0], SCROLL_STEP_PX);
+            scrollToEnd(instrumentation, recyclerView[0], -SCROLL_STEP_PX);
+
+            instrumentation.runOnMainSync(() -> {
+                adapter[0].reset();
+                Debug.resetThreadAllocCount();
+                Debug.startAllocCounting();
+            });
+            long scrollAllocations = scrollToEnd(instrumentation, recyclerView[0], SCROLL_STEP_PX);
+            instrumentation.runOnMainSync(Debug::stopAllocCounting);
+
+            Log.i(TAG, "binds=" + adapter[0].binds + " bindAllocations=" + adapter[0].allocations
+                    + " scrollAllocations=" + scrollAllocations);
+            assertTrue("Too few binds measured: " + adapter[0].binds, adapter[0].binds >= MIN_MEASURED_BINDS);
+            assertEquals("Allocations inside onBindViewHolder", MAX_BIND_ALLOCATIONS, adapter[0].allocations);
+        }
+    }
+
+    /**
+     * Builds distinct artists whose thumbnails are already in the memory cache, as after the
+     * list has been scrolled once with network access.
+     *
+     * @param imageCache The memory cache shared with Picasso.
+     * @return The artists.
+     */
+    private static List<Artist> createArtists(TieredImageCache imageCache) {
+        for (int i = 0; i < THUMBNAIL_COUNT; i++) {
+            imageCache.set(TieredImageCache.keyOf(thumbnailUrl(i)), Bitmap.createBitmap(64, 64, Bitmap.Config.ARGB_8888));
+        }
+        List<Artist> artists = new ArrayList<>(ARTIST_COUNT);
+        for (int i = 0; i < ARTIST_COUNT; i++) {
+            String thumbnailUrl = thumbnailUrl(i % THUMBNAIL_COUNT);
+            artists.add(new Artist("id" + i, "Artist " + i, thumbnailUrl, thumbnailUrl, i));
+        }
+        return artists;
+    }
+
+    /**
+     * Builds the URL of a test thumbnail; it is never fetched.
+     *
+     * @param index The index of the thumbnail.
+     * @return The URL.
+     */
+    private static String thumbnailUrl(int index) {
+        return "https://example.invalid/thumbnails/" + index + ".jpg";
+    }
+
+    /**
+     * Scrolls step by step until the list cannot scroll further in the given direction.
+     *
+     * @param instrumentation The instrumentation driving the main thread.
+     * @param recyclerView    The list to scroll.
+     * @param step            The distance per step; negative scrolls up.
+     * @return The main-thread allocations counted while scrolling.
+     */
+    @SuppressWarnings("deprecation")
+    private static long scrollToEnd(Instrumentation instrumentation, RecyclerView recyclerView, int step) {
+        long[] allocations = new long[1];
+        boolean[] canScroll = {true};
+        while (canScroll[0]) {
+            instrumentation.runOnMainSync(() -> {
+                int before = Debug.getThreadAllocCount();
+                recyclerView.scrollBy(0, step);
+                allocations[0] += Debug.getThreadAllocCount() - before;
+                canScroll[0] = recyclerView.canScrollVertically(step);
+            });
+        }
+        instrumentation.waitForIdleSync();
+        return allocations[0];
+    }
+
+    /**
+     * ArtistAdapter that counts the main-thread allocations made inside each bind.
+     */
+    private static class CountingAdapter extends ArtistAdapter {
+        long allocations;
+        int binds;
+
+        CountingAdapter(List<Artist> artists, ArtistRowViewPool rowViewPool) {
+            super(artists, null, rowViewPool);
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+            int before = Debug.getThreadAllocCount();
+            super.onBindViewHolder(holder, position);
+            allocations += Debug.getThreadAllocCount() - before;
+            binds++;
+        }
+
+        void reset() {
+            allocations = 0;
+            binds = 0;
+        }
+    }
+}
@@ -1,6 +1,6 @@
 /**
  * Artist.java
- * This class represents an artist with information such as name, image URL, and number of followers.
+ * This class represents an artist with information such as Spotify ID, name, image URL, number of followers, and genres.
  *
  * @author Lorenz Aparentado
  * @since 2023-12
@@ -8,21 +8,62 @@
 package com.example.spotifyartistexplorer;
 
 public class Artist {
+    private final String id;
     private final String name;
     private final String imageUrl;
+    private final String thumbnailUrl;
     private final int followers;
+    private final String[] genres;
 
     /**
-     * Constructs an Artist object with the specified name, image URL, and number of followers.
+     * Formatted follower count, built on first use.
+     */
+    private String followersText;
+
+    /**
+     * Picasso memory cache key of the thumbnail, built on first use.
+     */
+    private String thumbnailCacheKey;
+
+    /**
+     * Constructs an Artist object with the specified Spotify ID, name, image URLs, and number of followers.
+     *
+     * @param id           The Spotify ID of the artist.
+     * @param name         The name of the artist.
+     * @param imageUrl     The URL of the artist's full-size image.
+     * @param thumbnailUrl The URL of a smaller variant of the image for list rows.
+     * @param followers    The number of followers the artist has.
+     */
+    public Artist(String id, String name, String imageUrl, String thumbnailUrl, int followers) {
+        this(id, name, imageUrl, thumbnailUrl, followers, new String[0]);
+    }
+
+    /**
+     * Constructs an Artist object with the specified Spotify ID, name, image URLs, number of followers, and genres.
      *
-     * @param name      The name of the artist.
-     * @param imageUrl  The URL of the artist's image.
-     * @param followers The number of followers the artist has.
+     * @param id           The Spotify ID of the artist.
+     * @param name         The name of the artist.
+     * @param imageUrl     The URL of the artist's full-size image.
+     * @param thumbnailUrl The URL of a smaller variant of the image for list rows.
+     * @param followers    The number of followers the artist has.
+     * @param genres       The genres Spotify associates with the artist.
      */
-    public Artist(String name, String imageUrl, int followers) {
+    public Artist(String id, String name, String imageUrl, String thumbnailUrl, int followers, String[] genres) {
+        this.id = id;
         this.name = name;
         this.imageUrl = imageUrl;
+        this.thumbnailUrl = thumbnailUrl;
         this.followers = followers;
+        this.genres = genres;
+    }
+
+    /**
+     * Gets the Spotify ID of the artist, which identifies the same artist across markets.
+     *
+     * @return The Spotify ID of the artist.
+     */
+    public String getId() {
+        return id;
     }
 
     /**
@@ -43,6 +84,15 @@ public class Artist {
         return imageUrl;
     }
 
+    /**
+     * Gets the URL of the smaller image variant shown in list rows.
+     *
+     * @return The URL of the artist's thumbnail image.
+     */
+    public String getThumbnailUrl() {
+        return thumbnailUrl;
+    }
+
     /**
      * Gets the number of followers the artist has.
      *
@@ -51,4 +101,39 @@ public class Artist {
     public int getNumberOfFollowers() {
         return followers;
     }
+
+    /**
+     * Gets the genres Spotify associates with the artist.
+     *
+     * @return The genres, empty if Spotify lists none.
+     */
+    public String[] getGenres() {
+        return genres;
+    }
+
+    /**
+     * Gets the follower count formatted for display, e.g. "Followers: 1,234".
+     * The string is built once and reused.
+     *
+     * @return The formatted follower count.
+     */
+    public String getFollowersText() {
+        if (followersText == null) {
+            followersText = String.format("Followers: %,d", followers);
+        }
+        return followersText;
+    }
+
+    /**
+     * Gets the memory cache key of the thumbnail. The key is built once and reused, so binding
+     * a row to an artist seen before allocates nothing.
+     *
+     * @return The thumbnail's memory cache key.
+     */
+    public String getThumbnailCacheKey() {
+        if (thumbnailCacheKey == null) {
+            thumbnailCacheKey = TieredImageCache.keyOf(thumbnailUrl);
+        }
+        return thumbnailCacheKey;
+    }
 }
@@ -7,7 +7,8 @@
  */
 package com.example.spotifyartistexplorer;
 
-import android.view.LayoutInflater;
+import android.graphics.Bitmap;
+import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.Button;
@@ -34,14 +35,54 @@ public class ArtistAdapter extends RecyclerView.Adapter<ArtistAdapter.ViewHolder
     private SearchFragment searchFragment;
 
     /**
-     * Constructs an ArtistAdapter with the given list of artists and SearchFragment.
+     * Source of pre-inflated row views.
+     */
+    private ArtistRowViewPool rowViewPool;
+
+    /**
+     * Memory cache consulted directly for thumbnails that are already decoded.
+     */
+    private TieredImageCache imageCache;
+
+    /**
+     * Click listener shared by every row's overlay button. Resolves the row's adapter and
+     * position when clicked, so it stays correct after incremental updates and across adapters
+     * sharing the recycled view pool.
+     */
+    private static final View.OnClickListener OVERLAY_CLICK_LISTENER = view -> {
+        ViewHolder holder = (ViewHolder) view.getTag();
+        ArtistAdapter adapter = (ArtistAdapter) holder.getBindingAdapter();
+        int position = holder.getBindingAdapterPosition();
+        if (adapter != null && position != RecyclerView.NO_POSITION) {
+            adapter.launchArtistDetails(position);
+        }
+    };
+
+    /**
+     * Touch listener shared by every row's overlay button that starts fetching the full-size
+     * image as soon as the row is pressed, ahead of the fragment transaction.
+     */
+    private static final View.OnTouchListener OVERLAY_PRESS_LISTENER = (view, event) -> {
+        if (event.getActionMasked() == MotionEvent.ACTION_DOWN) {
+            ViewHolder holder = (ViewHolder) view.getTag();
+            if (holder.boundArtist != null) {
+                prefetchFullImage(holder.boundArtist);
+            }
+        }
+        return false;
+    };
+
+    /**
+     * Constructs an ArtistAdapter with the given list of artists, SearchFragment and row view pool.
      *
      * @param artists        List of artists to be displayed.
      * @param searchFragment Reference to the SearchFragment.
+     * @param rowViewPool    Pool supplying pre-inflated row views.
      */
-    public ArtistAdapter(List<Artist> artists, SearchFragment searchFragment) {
+    public ArtistAdapter(List<Artist> artists, SearchFragment searchFragment, ArtistRowViewPool rowViewPool) {
         this.artists = artists;
         this.searchFragment = searchFragment;
+        this.rowViewPool = rowViewPool;
     }
 
     /**
@@ -54,8 +95,14 @@ public class ArtistAdapter extends RecyclerView.Adapter<ArtistAdapter.ViewHolder
     @NonNull
     @Override
     public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        if (imageCache == null) {
+            imageCache = ((ArtistExplorerApplication) parent.getContext().getApplicationContext()).getImageCache();
+        }
         View view = createView(parent);
-        return new ViewHolder(view);
+        ViewHolder holder = new ViewHolder(view);
+        holder.buttonOverlay.setOnClickListener(OVERLAY_CLICK_LISTENER);
+        holder.buttonOverlay.setOnTouchListener(OVERLAY_PRESS_LISTENER);
+        return holder;
     }
 
     /**
@@ -67,7 +114,6 @@ public class ArtistAdapter extends RecyclerView.Adapter<ArtistAdapter.ViewHolder
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
         bindArtistData(holder, position);
-        setOverlayClickListener(holder, position);
     }
 
     /**
@@ -81,41 +127,79 @@ public class ArtistAdapter extends RecyclerView.Adapter<ArtistAdapter.ViewHolder
     }
 
     /**
-     * Inflates a view and returns the corresponding ViewHolder.
+     * Gets a row view, pre-inflated in the background when one is ready.
      *
      * @param parent The parent ViewGroup.
-     * @return The inflated View wrapped in a ViewHolder.
+     * @return The row View.
      */
     private View createView(ViewGroup parent) {
-        return LayoutInflater.from(parent.getContext()).inflate(R.layout.item_artist, parent, false);
+        return rowViewPool.obtainRow(parent);
     }
 
     /**
-     * Binds artist data to the ViewHolder at the specified position.
+     * Binds artist data to the ViewHolder at the specified position. Views that already show
+     * the same content are left untouched, and a thumbnail that is already decoded is set
+     * straight from the memory cache, so binding a row to an artist seen before allocates
+     * nothing in this method.
      *
      * @param holder   The ViewHolder to bind data to.
      * @param position The position of the item within the adapter's data set.
      */
     private void bindArtistData(ViewHolder holder, int position) {
         Artist artist = artists.get(position);
+        if (artist == holder.boundArtist) {
+            return;
+        }
+        holder.boundArtist = artist;
+
+        String name = artist.getName();
+        if (!name.equals(holder.boundName)) {
+            holder.boundName = name;
+            holder.textViewArtistName.setText(name);
+        }
 
         // Load image using Picasso
-        holder.textViewArtistName.setText(artist.getName());
+        String thumbnailUrl = artist.getThumbnailUrl();
+        if (!thumbnailUrl.equals(holder.boundThumbnailUrl)) {
+            holder.boundThumbnailUrl = thumbnailUrl;
+            if (thumbnailUrl.isEmpty()) {
+                Picasso.get().cancelRequest(holder.imageViewArtist);
+                holder.imageViewArtist.setImageDrawable(null);
+            } else {
+                bindThumbnail(holder, artist);
+            }
+        }
+    }
 
-        String imageUrl = artist.getImageUrl();
-        if (imageUrl != null && !imageUrl.isEmpty()) {
-            Picasso.get().load(imageUrl).into(holder.imageViewArtist);
+    /**
+     * Shows an artist's thumbnail. A cache hit is set directly, skipping the RequestCreator,
+     * Request and Action a Picasso load builds each time; ImageView reuses its own drawable for
+     * setImageBitmap. Only a miss goes through Picasso.
+     *
+     * @param holder The ViewHolder to bind the thumbnail to.
+     * @param artist The artist whose thumbnail to show.
+     */
+    private void bindThumbnail(ViewHolder holder, Artist artist) {
+        Bitmap thumbnail = imageCache == null ? null : imageCache.getThumbnail(artist.getThumbnailCacheKey());
+        if (thumbnail != null) {
+            Picasso.get().cancelRequest(holder.imageViewArtist);
+            holder.imageViewArtist.setImageBitmap(thumbnail);
+        } else {
+            Picasso.get().load(artist.getThumbnailUrl()).into(holder.imageViewArtist);
         }
     }
 
     /**
-     * Sets a click listener for the overlay button to launch artist details.
+     * Fetches the full-size image of an artist into Picasso's cache. The details screen's
+     * request for the same URL joins this one if it is still in flight.
      *
-     * @param holder   The ViewHolder containing the overlay button.
-     * @param position The position of the item within the adapter's data set.
+     * @param artist The artist whose image to fetch.
      */
-    private void setOverlayClickListener(ViewHolder holder, int position) {
-        holder.buttonOverlay.setOnClickListener(view -> launchArtistDetails(position));
+    private static void prefetchFullImage(Artist artist) {
+        String imageUrl = artist.getImageUrl();
+        if (!imageUrl.isEmpty() && !imageUrl.equals(artist.getThumbnailUrl())) {
+            Picasso.get().load(imageUrl).priority(Picasso.Priority.HIGH).fetch();
+        }
     }
 
     /**
@@ -136,6 +220,13 @@ public class ArtistAdapter extends RecyclerView.Adapter<ArtistAdapter.ViewHolder
         TextView textViewArtistName;
         Button buttonOverlay;
 
+        /**
+         * Content currently shown by the row, used to skip rebinding unchanged views.
+         */
+        Artist boundArtist;
+        String boundName;
+        String boundThumbnailUrl;
+
         /**
          * Constructs a ViewHolder with the given item view.
          *
@@ -146,6 +237,7 @@ public class ArtistAdapter extends RecyclerView.Adapter<ArtistAdapter.ViewHolder
             buttonOverlay = itemView.findViewById(R.id.buttonOverlay);
             imageViewArtist = itemView.findViewById(R.id.imageViewArtist);
             textViewArtistName = itemView.findViewById(R.id.textViewArtistName);
+            buttonOverlay.setTag(this);
         }
     }
 }
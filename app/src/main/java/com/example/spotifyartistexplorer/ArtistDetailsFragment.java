@@ -1,6 +1,6 @@
 /*
  * ArtistDetailsFragment.java
- * Function: Fragment for displaying detailed information about an artist, including name, number of followers, and image.
+ * Function: Fragment for displaying detailed information about an artist, including name, number of followers, image, follower history and top-track previews.
  *
  * @author Lorenz Aparentado
  * @since 2023-12
@@ -8,38 +8,74 @@
 package com.example.spotifyartistexplorer;
 
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.AdapterView;
+import android.widget.ArrayAdapter;
 import android.widget.Button;
 import android.widget.ImageButton;
 import android.widget.ImageView;
+import android.widget.LinearLayout;
+import android.widget.Spinner;
 import android.widget.TextView;
 
 import androidx.fragment.app.Fragment;
 
+import com.android.volley.Request;
+import com.squareup.picasso.Callback;
+import com.squareup.picasso.NetworkPolicy;
 import com.squareup.picasso.Picasso;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 public class ArtistDetailsFragment extends Fragment {
 
+    private static final String ARG_ARTIST_ID = "artistId";
     private static final String ARG_ARTIST_NAME = "artistName";
-    private static final String ARG_NUMBER_OF_FOLLOWERS = "numberOfFollowers";
+    private static final String ARG_FOLLOWERS_TEXT = "followersText";
     private static final String ARG_IMAGE_URL = "imageUrl";
+    private static final String ARG_THUMBNAIL_URL = "thumbnailUrl";
+    private static final String ARG_NUMBER_OF_FOLLOWERS = "numberOfFollowers";
+
+    private static final long SECONDS_PER_DAY = 24 * 60 * 60;
+
+    /**
+     * Number of top-track previews buffered ahead of a tap; only the first on a poor connection.
+     */
+    private static final int PREFETCH_PREVIEWS = 3;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService historyExecutor = Executors.newSingleThreadExecutor();
+    private int historyRangeDays;
+
+    private Request<?> topTracksRequest;
+    private final List<PreviewAudioCache.Prefetch> previewPrefetches = new ArrayList<>();
+    private PreviewPlayer previewPlayer;
 
     /**
      * Creates a new instance of ArtistDetailsFragment with the provided artist details.
      *
-     * @param artistName         The name of the artist.
-     * @param numberOfFollowers The number of followers of the artist.
-     * @param imageUrl           The URL of the artist's image.
+     * @param artist The artist to show.
      * @return A new instance of ArtistDetailsFragment.
      */
-    public static ArtistDetailsFragment newInstance(String artistName, int numberOfFollowers, String imageUrl) {
+    public static ArtistDetailsFragment newInstance(Artist artist) {
         ArtistDetailsFragment fragment = new ArtistDetailsFragment();
         Bundle args = new Bundle();
-        args.putString(ARG_ARTIST_NAME, artistName);
-        args.putInt(ARG_NUMBER_OF_FOLLOWERS, numberOfFollowers);
-        args.putString(ARG_IMAGE_URL, imageUrl);
+        args.putString(ARG_ARTIST_ID, artist.getId());
+        args.putString(ARG_ARTIST_NAME, artist.getName());
+        args.putString(ARG_FOLLOWERS_TEXT, artist.getFollowersText());
+        args.putString(ARG_IMAGE_URL, artist.getImageUrl());
+        args.putString(ARG_THUMBNAIL_URL, artist.getThumbnailUrl());
+        args.putInt(ARG_NUMBER_OF_FOLLOWERS, artist.getNumberOfFollowers());
         fragment.setArguments(args);
         return fragment;
     }
@@ -70,14 +106,18 @@ public class ArtistDetailsFragment extends Fragment {
         Bundle args = getArguments();
         if (args != null) {
             String artistName = args.getString(ARG_ARTIST_NAME, "");
-            int numberOfFollowers = args.getInt(ARG_NUMBER_OF_FOLLOWERS, 0);
+            String followersText = args.getString(ARG_FOLLOWERS_TEXT, "");
             String imageUrl = args.getString(ARG_IMAGE_URL, "");
+            String thumbnailUrl = args.getString(ARG_THUMBNAIL_URL, "");
 
             setTextViewText(view, R.id.textViewArtistName, artistName);
-            setTextViewText(view, R.id.textViewFollowers, String.format("Followers: %,d", numberOfFollowers));
-            loadImageWithPicasso(view, R.id.imageViewArtist, imageUrl);
+            setTextViewText(view, R.id.textViewFollowers, followersText);
+            loadImageWithPicasso(view, R.id.imageViewArtist, imageUrl, thumbnailUrl);
 
             setBackButtonClickListener(view);
+            setupWatchButton(view, args.getString(ARG_ARTIST_ID, ""), args.getInt(ARG_NUMBER_OF_FOLLOWERS));
+            setupHistoryChart(view, args.getString(ARG_ARTIST_ID, ""));
+            loadTopTracks(args.getString(ARG_ARTIST_ID, ""));
         }
     }
 
@@ -96,15 +136,48 @@ public class ArtistDetailsFragment extends Fragment {
     }
 
     /**
-     * Loads an image into an ImageView using Picasso.
+     * Loads an image into an ImageView using Picasso. The thumbnail the result list already
+     * decoded is shown straight from the memory cache, then replaced by the full-size image.
      *
-     * @param view       The root view of the fragment.
-     * @param imageViewId The resource ID of the ImageView.
-     * @param imageUrl    The URL of the image to load.
+     * @param view         The root view of the fragment.
+     * @param imageViewId  The resource ID of the ImageView.
+     * @param imageUrl     The URL of the image to load.
+     * @param thumbnailUrl The URL of the thumbnail to show until the image arrives.
      */
-    private void loadImageWithPicasso(View view, int imageViewId, String imageUrl) {
+    private void loadImageWithPicasso(View view, int imageViewId, String imageUrl, String thumbnailUrl) {
         ImageView imageView = view.findViewById(imageViewId);
-        if (imageView != null) {
+        if (imageView == null || imageUrl.isEmpty()) {
+            return;
+        }
+        if (thumbnailUrl.isEmpty() || thumbnailUrl.equals(imageUrl)) {
+            Picasso.get().load(imageUrl).into(imageView);
+            return;
+        }
+
+        // Completes synchronously when the thumbnail is in the memory cache
+        Picasso.get().load(thumbnailUrl).networkPolicy(NetworkPolicy.OFFLINE).noFade().into(imageView, new Callback() {
+            @Override
+            public void onSuccess() {
+                loadFullImage(imageView, imageUrl);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                loadFullImage(imageView, imageUrl);
+            }
+        });
+    }
+
+    /**
+     * Loads the full-size image, keeping whatever the ImageView shows until it arrives.
+     *
+     * @param imageView The ImageView to load into.
+     * @param imageUrl  The URL of the image to load.
+     */
+    private void loadFullImage(ImageView imageView, String imageUrl) {
+        if (imageView.getDrawable() != null) {
+            Picasso.get().load(imageUrl).placeholder(imageView.getDrawable()).into(imageView);
+        } else {
             Picasso.get().load(imageUrl).into(imageView);
         }
     }
@@ -121,4 +194,258 @@ public class ArtistDetailsFragment extends Fragment {
         }
     }
 
+    /**
+     * Sets up the button that adds the artist to, or removes it from, the watched artists
+     * whose follower counts are refreshed in the background.
+     *
+     * @param view      The root view of the fragment.
+     * @param artistId  The Spotify ID of the artist.
+     * @param followers The follower count currently shown for the artist.
+     */
+    private void setupWatchButton(View view, String artistId, int followers) {
+        Button watchButton = view.findViewById(R.id.buttonWatch);
+        if (watchButton == null) {
+            return;
+        }
+        if (artistId.isEmpty()) {
+            watchButton.setVisibility(View.GONE);
+            return;
+        }
+        WatchedArtistStore watchedArtistStore = new WatchedArtistStore(requireContext());
+        watchButton.setText(watchedArtistStore.isWatched(artistId) ? R.string.unwatch_label : R.string.watch_label);
+        watchButton.setOnClickListener(v -> {
+            if (watchedArtistStore.isWatched(artistId)) {
+                watchedArtistStore.unwatch(artistId);
+                watchButton.setText(R.string.watch_label);
+            } else {
+                watchedArtistStore.watch(artistId, followers);
+                watchButton.setText(R.string.unwatch_label);
+                recordFirstSample(artistId, followers);
+            }
+        });
+    }
+
+    /**
+     * Sets up the follower history chart and the spinner that picks its time range.
+     *
+     * @param view     The root view of the fragment.
+     * @param artistId The Spotify ID of the artist.
+     */
+    private void setupHistoryChart(View view, String artistId) {
+        Spinner spinnerRange = view.findViewById(R.id.spinnerHistoryRange);
+        if (spinnerRange == null || artistId.isEmpty()) {
+            return;
+        }
+        int[] rangeDays = getResources().getIntArray(R.array.history_range_days);
+        ArrayAdapter<CharSequence> adapter = ArrayAdapter.createFromResource(requireContext(),
+                R.array.history_range_options, R.layout.item_spinner);
+        adapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        spinnerRange.setAdapter(adapter);
+        spinnerRange.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View itemView, int position, long id) {
+                historyRangeDays = rangeDays[position];
+                loadHistory(artistId);
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {
+            }
+        });
+    }
+
+    /**
+     * Reads the selected range of the artist's follower history in the background and shows it
+     * in the chart. Only the blocks overlapping the range are read.
+     *
+     * @param artistId The Spotify ID of the artist.
+     */
+    private void loadHistory(String artistId) {
+        FollowerHistoryStore historyStore = FollowerHistoryStore.getInstance(requireContext());
+        String emptyText = getString(R.string.history_empty);
+        long toTime = System.currentTimeMillis() / 1000;
+        long fromTime = historyRangeDays == 0 ? Long.MIN_VALUE : toTime - historyRangeDays * SECONDS_PER_DAY;
+        historyExecutor.execute(() -> {
+            try {
+                FollowerHistoryStore.Samples samples = historyStore.query(artistId, fromTime, toTime);
+                mainHandler.post(() -> showHistory(samples, emptyText));
+            } catch (IOException e) {
+                Log.w("FollowerHistoryStore", "Failed to read follower history", e);
+            }
+        });
+    }
+
+    /**
+     * Shows samples in the chart if the view still exists.
+     *
+     * @param samples   The samples to show.
+     * @param emptyText The text shown when there are too few samples.
+     */
+    private void showHistory(FollowerHistoryStore.Samples samples, String emptyText) {
+        View view = getView();
+        FollowerHistoryChartView chart = view == null ? null : view.findViewById(R.id.chartFollowerHistory);
+        if (chart != null) {
+            chart.setSamples(samples, emptyText);
+        }
+    }
+
+    /**
+     * Records the follower count shown when the artist is first watched, so the history starts
+     * before the first background refresh.
+     *
+     * @param artistId  The Spotify ID of the artist.
+     * @param followers The follower count currently shown for the artist.
+     */
+    private void recordFirstSample(String artistId, int followers) {
+        FollowerHistoryStore historyStore = FollowerHistoryStore.getInstance(requireContext());
+        long time = System.currentTimeMillis() / 1000;
+        historyExecutor.execute(() -> {
+            try {
+                historyStore.append(Collections.singletonMap(artistId, followers), time);
+            } catch (IOException e) {
+                Log.w("FollowerHistoryStore", "Failed to record follower history", e);
+            }
+        });
+        loadHistory(artistId);
+    }
+
+    /**
+     * Fetches the artist's top tracks, reusing the cached access token when there is one.
+     *
+     * @param artistId The Spotify ID of the artist.
+     */
+    private void loadTopTracks(String artistId) {
+        if (artistId.isEmpty()) {
+            return;
+        }
+        new SpotifyAuthenticator(requireContext()).authenticate(new SpotifyAuthenticator.AuthCallback() {
+            @Override
+            public void onSuccess(String accessToken) {
+                if (getView() == null) {
+                    return;
+                }
+                SpotifyApiHelper spotifyApiHelper = new SpotifyApiHelper(requireContext(), accessToken);
+                topTracksRequest = spotifyApiHelper.getTopTracks(artistId, SpotifyApiHelper.getDefaultMarket(),
+                        new SpotifyApiHelper.TopTracksCallback() {
+                            @Override
+                            public void onSuccess(List<Track> tracks) {
+                                topTracksRequest = null;
+                                if (getView() != null) {
+                                    showTopTracks(tracks);
+                                    prefetchPreviews(tracks);
+                                }
+                            }
+
+                            @Override
+                            public void onError(String errorMessage) {
+                                topTracksRequest = null;
+                                Log.e("SpotifyApiHelper", "Top tracks request failed: " + errorMessage);
+                            }
+                        });
+            }
+
+            @Override
+            public void onError(String errorMessage) {
+                Log.e("SpotifyAuthenticator", "Authentication failed: " + errorMessage);
+            }
+        });
+    }
+
+    /**
+     * Adds a row per top track. Tapping a row with a preview plays it from the preview cache,
+     * tapping it again stops it.
+     *
+     * @param tracks The artist's top tracks.
+     */
+    private void showTopTracks(List<Track> tracks) {
+        LinearLayout layoutTopTracks = requireView().findViewById(R.id.layoutTopTracks);
+        previewPlayer = new PreviewPlayer(PreviewAudioCache.getInstance(requireContext()));
+        previewPlayer.setPlaybackListener(playingUrl -> updateTrackRows(layoutTopTracks, playingUrl));
+
+        layoutTopTracks.removeAllViews();
+        for (Track track : tracks) {
+            TextView trackRow = (TextView) getLayoutInflater().inflate(android.R.layout.simple_list_item_1, layoutTopTracks, false);
+            trackRow.setTag(track);
+            trackRow.setTextColor(0xFFFFFFFF);
+            if (track.getPreviewUrl() == null) {
+                trackRow.setText(track.getName());
+                trackRow.setAlpha(0.5f);
+            } else {
+                trackRow.setText(getString(R.string.track_play, track.getName()));
+                trackRow.setOnClickListener(v -> previewPlayer.toggle(track.getPreviewUrl()));
+            }
+            layoutTopTracks.addView(trackRow);
+        }
+    }
+
+    /**
+     * Marks the row of the playing preview.
+     *
+     * @param layoutTopTracks The layout holding the track rows.
+     * @param playingUrl      The URL of the preview now playing, or null if none is.
+     */
+    private void updateTrackRows(LinearLayout layoutTopTracks, String playingUrl) {
+        for (int i = 0; i < layoutTopTracks.getChildCount(); i++) {
+            TextView trackRow = (TextView) layoutTopTracks.getChildAt(i);
+            Track track = (Track) trackRow.getTag();
+            if (track.getPreviewUrl() != null) {
+                boolean playing = track.getPreviewUrl().equals(playingUrl);
+                trackRow.setText(getString(playing ? R.string.track_stop : R.string.track_play, track.getName()));
+            }
+        }
+    }
+
+    /**
+     * Buffers the first seconds of the previews most likely to be tapped: the most popular
+     * tracks that have one, which Spotify lists first.
+     *
+     * @param tracks The artist's top tracks.
+     */
+    private void prefetchPreviews(List<Track> tracks) {
+        PreviewAudioCache previewAudioCache = PreviewAudioCache.getInstance(requireContext());
+        boolean poorConnection = NetworkQualityEstimator.getInstance().getConnectionClass()
+                == NetworkQualityEstimator.ConnectionClass.POOR;
+        int remaining = poorConnection ? 1 : PREFETCH_PREVIEWS;
+        for (Track track : tracks) {
+            if (remaining == 0) {
+                break;
+            }
+            if (track.getPreviewUrl() != null) {
+                previewPrefetches.add(previewAudioCache.prefetch(track.getPreviewUrl()));
+                remaining--;
+            }
+        }
+    }
+
+    /**
+     * Called when the view is going away; cancels the top-tracks request and any preview
+     * buffering, and stops playback.
+     */
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        if (topTracksRequest != null) {
+            topTracksRequest.cancel();
+            topTracksRequest = null;
+        }
+        for (PreviewAudioCache.Prefetch prefetch : previewPrefetches) {
+            prefetch.cancel();
+        }
+        previewPrefetches.clear();
+        if (previewPlayer != null) {
+            previewPlayer.setPlaybackListener(null);
+            previewPlayer.stop();
+            previewPlayer = null;
+        }
+    }
+
+    /**
+     * Called when the fragment is no longer in use; stops the history reads.
+     */
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        historyExecutor.shutdownNow();
+    }
+
 }
@@ -0,0 +1,138 @@
+/**
+ * ArtistExplorerApplication.java
+ * Function: Application class that sets up the shared Picasso instance and the cache registry,
+ * forwards system memory pressure to the registry and schedules the watched artists refresh.
+ *
+ * @author Lorenz Aparentado
+ * @since 2023-12
+ */
+package com.example.spotifyartistexplorer;
+
+import android.app.ActivityManager;
+import android.app.Application;
+import android.content.Context;
+
+import com.squareup.picasso.OkHttp3Downloader;
+import com.squareup.picasso.Picasso;
+
+import java.io.File;
+
+import okhttp3.Cache;
+import okhttp3.OkHttpClient;
+
+public class ArtistExplorerApplication extends Application {
+
+    /**
+     * Share of the app's memory class given to decoded images, as Picasso does by default.
+     */
+    private static final int IMAGE_CACHE_DIVISOR = 7;
+
+    /**
+     * Size of the HTTP disk cache for downloaded images, in the directory Picasso uses by default.
+     */
+    private static final long IMAGE_DISK_CACHE_BYTES = 32L * 1024 * 1024;
+    private static final String IMAGE_DISK_CACHE_DIR = "picasso-cache";
+
+    private TieredImageCache imageCache;
+
+    /**
+     * Called when the application is starting, before any activity is created.
+     */
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        initializePicasso();
+        registerResultCache();
+        registerFollowerHistory();
+        WatchedArtistsRefreshWorker.schedule(this);
+    }
+
+    /**
+     * Called when the system asks the app to release memory.
+     *
+     * @param level The context of the trim, one of the ComponentCallbacks2 TRIM_MEMORY levels.
+     */
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        CacheRegistry.getInstance().onTrimMemory(level);
+    }
+
+    /**
+     * Called when the whole system is running low on memory.
+     */
+    @Override
+    public void onLowMemory() {
+        super.onLowMemory();
+        CacheRegistry.getInstance().trimAll();
+    }
+
+    /**
+     * Gets the memory cache shared with Picasso.
+     *
+     * @return The image cache.
+     */
+    public TieredImageCache getImageCache() {
+        return imageCache;
+    }
+
+    /**
+     * Installs the Picasso singleton with a tiered memory cache registered for trimming and an
+     * image client whose downloads feed the network quality estimate.
+     */
+    private void initializePicasso() {
+        ActivityManager activityManager = (ActivityManager) getSystemService(Context.ACTIVITY_SERVICE);
+        int maxBytes = activityManager.getMemoryClass() * 1024 * 1024 / IMAGE_CACHE_DIVISOR;
+        imageCache = new TieredImageCache(maxBytes);
+
+        // Image downloads are the large transfers the network estimate measures throughput from;
+        // a network interceptor skips responses served from the disk cache
+        OkHttpClient imageClient = new OkHttpClient.Builder()
+                .cache(new Cache(new File(getCacheDir(), IMAGE_DISK_CACHE_DIR), IMAGE_DISK_CACHE_BYTES))
+                .addNetworkInterceptor(new NetworkQualityInterceptor())
+                .build();
+        Picasso.setSingletonInstance(new Picasso.Builder(this)
+                .memoryCache(imageCache)
+                .downloader(new OkHttp3Downloader(imageClient))
+                .build());
+
+        CacheRegistry registry = CacheRegistry.getInstance();
+        registry.register(CacheRegistry.Tier.IMAGE_MEMORY, imageCache.getFullImageTier());
+        registry.register(CacheRegistry.Tier.DECODED_THUMBNAILS, imageCache.getThumbnailTier());
+    }
+
+    /**
+     * Registers the parsed search result pages for trimming.
+     */
+    private void registerResultCache() {
+        CacheRegistry.getInstance().register(CacheRegistry.Tier.RESULT_PAGES, new CacheRegistry.TrimmableCache() {
+            @Override
+            public long getByteSize() {
+                return SearchResultCache.getByteSize();
+            }
+
+            @Override
+            public void trim() {
+                SearchResultCache.clear();
+            }
+        });
+    }
+
+    /**
+     * Registers the follower history index for trimming; it is rebuilt from disk on next use.
+     */
+    private void registerFollowerHistory() {
+        FollowerHistoryStore historyStore = FollowerHistoryStore.getInstance(this);
+        CacheRegistry.getInstance().register(CacheRegistry.Tier.PERSISTENT_STORE, new CacheRegistry.TrimmableCache() {
+            @Override
+            public long getByteSize() {
+                return historyStore.getByteSize();
+            }
+
+            @Override
+            public void trim() {
+                historyStore.trim();
+            }
+        });
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * ArtistRowViewPool.java
+ * Function: Inflates artist rows on a background thread ahead of the first results and holds a
+ * RecycledViewPool that outlives individual adapters and RecyclerViews within the activity.
+ * Launching MainActivity with the disable_row_pool extra turns the pool off, so
+ * render.first_result_ms can be compared with and without it (see the README).
+ *
+ * @author Lorenz Aparentado
+ * @since 2023-12
+ */
+package com.example.spotifyartistexplorer;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.asynclayoutinflater.view.AsyncLayoutInflater;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+public class ArtistRowViewPool {
+
+    /**
+     * Number of rows to have ready: a screen's worth plus the rows bound just off screen.
+     */
+    private static final int PREINFLATE_COUNT = 8;
+
+    /**
+     * Number of recycled rows kept per view type, enough to refill a screen after navigating back.
+     */
+    private static final int MAX_RECYCLED_ROWS = 12;
+
+    private static final int ROW_VIEW_TYPE = 0;
+
+    private final boolean enabled;
+    private final AsyncLayoutInflater asyncLayoutInflater;
+    private final RecyclerView.RecycledViewPool recycledViewPool = new RecyclerView.RecycledViewPool();
+    private final Deque<View> preinflatedRows = new ArrayDeque<>();
+    private int pendingInflations;
+    private int preinflatedRowsUsed;
+    private int rowsInflatedOnMainThread;
+
+    /**
+     * Constructs an ArtistRowViewPool.
+     *
+     * @param context The activity context the rows are inflated with.
+     * @param enabled False to inflate every row on the main thread without sharing recycled rows,
+     *                as the lists did before the pool existed.
+     */
+    public ArtistRowViewPool(Context context, boolean enabled) {
+        this.enabled = enabled;
+        asyncLayoutInflater = new AsyncLayoutInflater(context);
+        recycledViewPool.setMaxRecycledViews(ROW_VIEW_TYPE, MAX_RECYCLED_ROWS);
+    }
+
+    /**
+     * Checks whether rows are pre-inflated and recycled rows shared.
+     *
+     * @return True if the pool is in use.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Gets the RecycledViewPool shared by every artist list in the activity.
+     *
+     * @return The shared RecycledViewPool.
+     */
+    public RecyclerView.RecycledViewPool getRecycledViewPool() {
+        return recycledViewPool;
+    }
+
+    /**
+     * Starts inflating rows in the background until enough rows are ready, counting the
+     * rows already waiting in the recycled pool. Cheap to call repeatedly; does nothing when the
+     * pool is disabled.
+     *
+     * @param parent The RecyclerView the rows will be added to, used for their layout params.
+     */
+    public void prewarm(ViewGroup parent) {
+        if (!enabled) {
+            return;
+        }
+        int ready = preinflatedRows.size() + pendingInflations + recycledViewPool.getRecycledViewCount(ROW_VIEW_TYPE);
+        for (int i = ready; i < PREINFLATE_COUNT; i++) {
+            pendingInflations++;
+            asyncLayoutInflater.inflate(R.layout.item_artist, parent, (view, resid, p) -> {
+                pendingInflations--;
+                preinflatedRows.add(view);
+            });
+        }
+    }
+
+    /**
+     * Gets a row view, taking a pre-inflated one if available and inflating on the calling
+     * thread otherwise.
+     *
+     * @param parent The RecyclerView the row will be added to.
+     * @return The row view.
+     */
+    public View obtainRow(ViewGroup parent) {
+        View row = preinflatedRows.poll();
+        if (row != null) {
+            preinflatedRowsUsed++;
+            DebugMetrics.record("rows.preinflated_used", preinflatedRowsUsed);
+            return row;
+        }
+        rowsInflatedOnMainThread++;
+        DebugMetrics.record("rows.inflated_on_main_thread", rowsInflatedOnMainThread);
+        return LayoutInflater.from(parent.getContext()).inflate(R.layout.item_artist, parent, false);
+    }
+}
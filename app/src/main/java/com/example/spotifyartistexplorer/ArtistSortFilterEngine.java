@@ -0,0 +1,853 @@
+/**
+ * ArtistSortFilterEngine.java
+ * Function: Keeps the accumulated search results sorted and filtered by followers and genres as
+ * result pages stream in, and reports only the positions that changed so the RecyclerView can
+ * update incrementally.
+ *
+ * @author Lorenz Aparentado
+ * @since 2023-12
+ */
+package com.example.spotifyartistexplorer;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class ArtistSortFilterEngine {
+
+    /**
+     * Orderings supported for the result list.
+     */
+    public enum SortKey {
+        RELEVANCE,
+        FOLLOWERS_DESCENDING,
+        FOLLOWERS_ASCENDING
+    }
+
+    /**
+     * Interface for receiving the positions that changed in the visible list.
+     * Mirrors the RecyclerView.Adapter notify methods.
+     */
+    public interface ChangeListener {
+        /**
+         * Called when items were inserted into the visible list.
+         *
+         * @param positionStart The position of the first inserted item.
+         * @param itemCount     The number of inserted items.
+         */
+        void onItemRangeInserted(int positionStart, int itemCount);
+
+        /**
+         * Called when items were removed from the visible list.
+         *
+         * @param positionStart The position of the first removed item.
+         * @param itemCount     The number of removed items.
+         */
+        void onItemRangeRemoved(int positionStart, int itemCount);
+
+        /**
+         * Called when the items at the given positions were replaced by other items.
+         *
+         * @param positionStart The position of the first changed item.
+         * @param itemCount     The number of changed items.
+         */
+        void onItemRangeChanged(int positionStart, int itemCount);
+    }
+
+    /**
+     * Number of most-followed artists tracked incrementally so a switch to the followers
+     * ordering can show its first screen before the full re-sort completes.
+     */
+    private static final int TOP_K = 50;
+
+    /**
+     * Rows are packed into the low bits of a sort key, which caps the number of rows.
+     */
+    private static final int ROW_BITS = 20;
+    private static final long ROW_MASK = (1L << ROW_BITS) - 1;
+    private static final int MAX_ROWS = 1 << ROW_BITS;
+
+    private final Executor mainExecutor;
+    private final ExecutorService sortExecutor;
+
+    /**
+     * All artists in arrival order; the index of an artist is its row.
+     */
+    private final List<Artist> rows = new ArrayList<>();
+    private int[] followers = new int[64];
+
+    /**
+     * Sort keys of every row, in sort order.
+     */
+    private long[] sortedKeys = new long[64];
+    private int sortedCount;
+
+    /**
+     * Sort keys of the rows that pass the filter, in sort order.
+     */
+    private long[] visibleKeys = new long[64];
+    private int visibleCount;
+
+    /**
+     * Min-heap holding the keys of the TOP_K most-followed rows.
+     */
+    private final PriorityQueue<Long> topFollowers = new PriorityQueue<>(TOP_K + 1);
+
+    private final GenreFacetIndex genreIndex = new GenreFacetIndex();
+    private int[] selectedGenres = new int[0];
+    private boolean matchAllGenres;
+
+    /**
+     * Rows matching the genre selection, or null when no genre is selected.
+     */
+    private long[] genreMask;
+
+    /**
+     * Rows whose artist has at least minFollowers followers, kept alongside the genre bitsets so
+     * facet counts need no per-row pass.
+     */
+    private long[] followerRows = new long[1];
+
+    private final List<Artist> visibleArtists = new AbstractList<Artist>() {
+        @Override
+        public Artist get(int index) {
+            return rows.get(rowOf(visibleKeys[index]));
+        }
+
+        @Override
+        public int size() {
+            return visibleCount;
+        }
+    };
+
+    private SortKey sortKey = SortKey.RELEVANCE;
+    private int minFollowers;
+    private int filterVersion;
+    private int generation;
+    private boolean resortPending;
+    private ChangeListener changeListener;
+
+    /**
+     * Constructor for ArtistSortFilterEngine. Re-sorts run on a background thread and are
+     * published on the main thread.
+     */
+    public ArtistSortFilterEngine() {
+        this(new Handler(Looper.getMainLooper())::post, Executors.newSingleThreadExecutor());
+    }
+
+    /**
+     * Constructor for ArtistSortFilterEngine with explicit threads, so tests can drive the
+     * main thread themselves.
+     *
+     * @param mainExecutor Runs the publishing of re-sorts on the thread that calls the engine.
+     * @param sortExecutor Runs the re-sorts.
+     */
+    ArtistSortFilterEngine(Executor mainExecutor, ExecutorService sortExecutor) {
+        this.mainExecutor = mainExecutor;
+        this.sortExecutor = sortExecutor;
+    }
+
+    /**
+     * Sets the listener notified about changed positions in the visible list.
+     *
+     * @param changeListener The listener, typically forwarding to the ArtistAdapter.
+     */
+    public void setChangeListener(ChangeListener changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    /**
+     * Gets a live, read-only view of the artists that pass the filter, in sort order.
+     *
+     * @return The visible artists.
+     */
+    public List<Artist> getVisibleArtists() {
+        return visibleArtists;
+    }
+
+    /**
+     * Gets the current ordering.
+     *
+     * @return The current sort key.
+     */
+    public SortKey getSortKey() {
+        return sortKey;
+    }
+
+    /**
+     * Gets the minimum follower count an artist needs to be visible.
+     *
+     * @return The follower threshold.
+     */
+    public int getMinFollowers() {
+        return minFollowers;
+    }
+
+    /**
+     * Gets the number of distinct genres among the accumulated artists.
+     *
+     * @return The genre count; genre IDs run from 0 to this count minus one.
+     */
+    public int getGenreCount() {
+        return genreIndex.getGenreCount();
+    }
+
+    /**
+     * Gets the name of a genre.
+     *
+     * @param genreId The genre ID.
+     * @return The genre name.
+     */
+    public String getGenreName(int genreId) {
+        return genreIndex.getGenreName(genreId);
+    }
+
+    /**
+     * Gets the selected genre IDs.
+     *
+     * @return The selected genre IDs, empty when genres are not filtered.
+     */
+    public int[] getSelectedGenres() {
+        return selectedGenres.clone();
+    }
+
+    /**
+     * Checks whether an artist needs every selected genre rather than any of them.
+     *
+     * @return True for AND, false for OR.
+     */
+    public boolean isMatchAllGenres() {
+        return matchAllGenres;
+    }
+
+    /**
+     * Counts, for every genre, the artists that have it among those passing the follower filter
+     * and, when every selected genre is required, the current genre selection. These are the
+     * artists that would remain after adding the genre to the selection. Only bitsets are
+     * combined, word by word, so the cost does not depend on scanning the artists.
+     *
+     * @return The counts, indexed by genre ID.
+     */
+    public int[] getGenreFacetCounts() {
+        long[] baseRows = followerRows;
+        if (matchAllGenres && genreMask != null) {
+            baseRows = new long[Math.min(followerRows.length, genreMask.length)];
+            for (int word = 0; word < baseRows.length; word++) {
+                baseRows[word] = followerRows[word] & genreMask[word];
+            }
+        }
+        return genreIndex.countFacets(baseRows);
+    }
+
+    /**
+     * Gets the number of accumulated artists, visible or not.
+     *
+     * @return The row count.
+     */
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    /**
+     * Gets the number of leading rows, in arrival order, needed to keep the first visible
+     * positions on screen.
+     *
+     * @param visibleEnd The number of leading visible positions to keep.
+     * @return One past the highest row shown at those positions, or 0 if there are none.
+     */
+    public int getRowCountCovering(int visibleEnd) {
+        int end = Math.min(visibleEnd, visibleCount);
+        int rowCount = 0;
+        for (int i = 0; i < end; i++) {
+            rowCount = Math.max(rowCount, rowOf(visibleKeys[i]) + 1);
+        }
+        return rowCount;
+    }
+
+    /**
+     * Estimates the heap bytes held by the accumulated artists and their sort index.
+     *
+     * @return The approximate footprint in bytes.
+     */
+    public long getByteSize() {
+        long total = 4L * followers.length + 8L * (sortedKeys.length + visibleKeys.length);
+        for (Artist artist : rows) {
+            total += SearchResultCache.getByteSize(artist);
+        }
+        return total;
+    }
+
+    /**
+     * Drops every row from the given row on, so a later page fetch can add them again.
+     * Only the positions of the dropped rows are reported as removed.
+     * Must be called on the main thread.
+     *
+     * @param rowCount The number of leading rows to keep.
+     * @return The dropped artists, in arrival order.
+     */
+    public List<Artist> truncateRows(int rowCount) {
+        if (rowCount >= rows.size()) {
+            return new ArrayList<>();
+        }
+        List<Artist> tail = rows.subList(rowCount, rows.size());
+        List<Artist> dropped = new ArrayList<>(tail);
+        tail.clear();
+
+        genreIndex.truncate(rowCount);
+        GenreFacetIndex.clearFrom(followerRows, rowCount);
+        if (genreMask != null) {
+            GenreFacetIndex.clearFrom(genreMask, rowCount);
+        }
+        topFollowers.clear();
+        for (int row = 0; row < rowCount; row++) {
+            offerTopFollower(row);
+        }
+
+        sortedCount = retainRowsBelow(sortedKeys, sortedCount, rowCount);
+        long[] oldVisible = visibleKeys;
+        int oldCount = visibleCount;
+        visibleKeys = Arrays.copyOf(oldVisible, oldVisible.length);
+        visibleCount = retainRowsBelow(visibleKeys, oldCount, rowCount);
+        dispatchFilterChanges(oldVisible, oldCount, visibleKeys, visibleCount);
+
+        // A re-sort still running covers dropped rows; start over without them
+        if (resortPending) {
+            generation++;
+            scheduleResort();
+        }
+        return dropped;
+    }
+
+    /**
+     * Removes all artists, for example when a new search starts.
+     */
+    public void clear() {
+        generation++;
+        resortPending = false;
+        int removed = visibleCount;
+        rows.clear();
+        sortedCount = 0;
+        visibleCount = 0;
+        topFollowers.clear();
+        genreIndex.clear();
+        Arrays.fill(followerRows, 0);
+        selectedGenres = new int[0];
+        genreMask = null;
+        if (removed > 0 && changeListener != null) {
+            changeListener.onItemRangeRemoved(0, removed);
+        }
+    }
+
+    /**
+     * Adds a page of artists, inserting each one at its sorted position.
+     * Must be called on the main thread.
+     *
+     * @param page The newly arrived artists.
+     */
+    public void addPage(List<Artist> page) {
+        for (Artist artist : page) {
+            if (rows.size() >= MAX_ROWS) {
+                break;
+            }
+            int row = rows.size();
+            rows.add(artist);
+            ensureRowCapacity(row + 1);
+            followers[row] = artist.getNumberOfFollowers();
+            offerTopFollower(row);
+            updateFollowerRow(row);
+            genreIndex.addRow(row, artist.getGenres());
+            if (genreMask != null) {
+                updateGenreMask(row);
+            }
+            // Rows arriving during a re-sort are merged in once it is published
+            if (!resortPending) {
+                insertRow(row);
+            }
+        }
+    }
+
+    /**
+     * Changes the ordering. The full re-sort runs on a background thread; when switching to
+     * the followers ordering the tracked top artists are shown immediately.
+     * Must be called on the main thread.
+     *
+     * @param newSortKey The new ordering.
+     */
+    public void setSortKey(SortKey newSortKey) {
+        if (newSortKey == sortKey) {
+            return;
+        }
+        sortKey = newSortKey;
+        generation++;
+
+        if (newSortKey == SortKey.FOLLOWERS_DESCENDING) {
+            showTopFollowersPreview();
+        }
+        scheduleResort();
+    }
+
+    /**
+     * Changes the minimum follower count an artist needs to be visible.
+     * Must be called on the main thread.
+     *
+     * @param newMinFollowers The follower threshold.
+     */
+    public void setMinFollowers(int newMinFollowers) {
+        if (newMinFollowers == minFollowers) {
+            return;
+        }
+        minFollowers = newMinFollowers;
+        rebuildFollowerRows();
+        filterVersion++;
+        // A pending re-sort picks up the new threshold when it is published
+        if (!resortPending) {
+            refilter();
+        }
+    }
+
+    /**
+     * Changes the genres an artist needs to be visible. The matching rows are computed once as a
+     * bitset over all rows, combining the genres' bitsets word by word.
+     * Must be called on the main thread.
+     *
+     * @param genreIds The selected genre IDs, empty to stop filtering by genre.
+     * @param matchAll True to require every selected genre, false to require any of them.
+     */
+    public void setGenreFilter(int[] genreIds, boolean matchAll) {
+        if (Arrays.equals(genreIds, selectedGenres) && (matchAll == matchAllGenres || genreIds.length < 2)) {
+            matchAllGenres = matchAll;
+            return;
+        }
+        selectedGenres = genreIds.clone();
+        matchAllGenres = matchAll;
+        genreMask = genreIds.length == 0 ? null : genreIndex.buildMask(genreIds, matchAll);
+        filterVersion++;
+        // A pending re-sort picks up the new selection when it is published
+        if (!resortPending) {
+            refilter();
+        }
+    }
+
+    /**
+     * Releases the background sort thread.
+     */
+    public void shutdown() {
+        generation++;
+        resortPending = false;
+        sortExecutor.shutdownNow();
+    }
+
+    /**
+     * Inserts a single row into the sorted index and, if it passes the filter, the visible list.
+     *
+     * @param row The row to insert.
+     */
+    private void insertRow(int row) {
+        long key = keyOf(row, sortKey);
+        sortedKeys = insertKey(sortedKeys, sortedCount, key);
+        sortedCount++;
+
+        if (passesFilter(row)) {
+            int position = insertionPoint(visibleKeys, visibleCount, key);
+            visibleKeys = insertKeyAt(visibleKeys, visibleCount, position, key);
+            visibleCount++;
+            if (changeListener != null) {
+                changeListener.onItemRangeInserted(position, 1);
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the visible list from the sorted index after the filter changed,
+     * reporting only the rows that appeared or disappeared.
+     */
+    private void refilter() {
+        long[] oldVisible = visibleKeys;
+        int oldCount = visibleCount;
+
+        long[] newVisible = new long[Math.max(sortedCount, 64)];
+        int newCount = 0;
+        for (int i = 0; i < sortedCount; i++) {
+            if (passesFilter(rowOf(sortedKeys[i]))) {
+                newVisible[newCount++] = sortedKeys[i];
+            }
+        }
+
+        visibleKeys = newVisible;
+        visibleCount = newCount;
+        dispatchFilterChanges(oldVisible, oldCount, newVisible, newCount);
+    }
+
+    /**
+     * Shows the tracked top artists at the head of the list while the full sort runs.
+     */
+    private void showTopFollowersPreview() {
+        long[] oldVisible = visibleKeys;
+        int oldCount = visibleCount;
+
+        long[] preview = new long[Math.max(topFollowers.size(), 64)];
+        int previewCount = 0;
+        for (Long topKey : topFollowers) {
+            int row = rowOf(topKey);
+            if (passesFilter(row)) {
+                preview[previewCount++] = keyOf(row, SortKey.FOLLOWERS_DESCENDING);
+            }
+        }
+        Arrays.sort(preview, 0, previewCount);
+
+        visibleKeys = preview;
+        visibleCount = previewCount;
+        dispatchReorderChanges(oldVisible, oldCount, preview, previewCount);
+    }
+
+    /**
+     * Re-sorts a snapshot of all rows on the background thread and publishes the result
+     * on the main thread. Rows that arrive while sorting are merged in afterwards.
+     */
+    private void scheduleResort() {
+        final int expectedGeneration = generation;
+        final SortKey key = sortKey;
+        final int expectedFilterVersion = filterVersion;
+        final int threshold = minFollowers;
+        final long[] genreMaskSnapshot = genreMask == null ? null : genreMask.clone();
+        final int snapshotCount = rows.size();
+        resortPending = true;
+        final int[] followersSnapshot = Arrays.copyOf(followers, snapshotCount);
+
+        sortExecutor.execute(() -> {
+            long sortStart = System.nanoTime();
+            long[] newSorted = new long[Math.max(snapshotCount, 64)];
+            for (int row = 0; row < snapshotCount; row++) {
+                newSorted[row] = keyOf(row, followersSnapshot[row], key);
+            }
+            Arrays.sort(newSorted, 0, snapshotCount);
+
+            long[] newVisible = new long[Math.max(snapshotCount, 64)];
+            int newVisibleCount = 0;
+            for (int i = 0; i < snapshotCount; i++) {
+                int row = rowOf(newSorted[i]);
+                if (followersSnapshot[row] >= threshold && (genreMaskSnapshot == null || isRowSet(genreMaskSnapshot, row))) {
+                    newVisible[newVisibleCount++] = newSorted[i];
+                }
+            }
+
+            DebugMetrics.record("sort.resort_rows", snapshotCount);
+            DebugMetrics.record("sort.resort_background_ms", (System.nanoTime() - sortStart) / 1_000_000);
+            final int visibleResultCount = newVisibleCount;
+            mainExecutor.execute(() -> publishResort(expectedGeneration, expectedFilterVersion, newSorted, snapshotCount,
+                    newVisible, visibleResultCount));
+        });
+    }
+
+    /**
+     * Installs a background sort result, unless a newer sort or search made it stale.
+     *
+     * @param expectedGeneration    The generation the sort was started for.
+     * @param expectedFilterVersion The version of the filter the sort filtered with.
+     * @param newSorted             The sorted keys of the snapshot rows.
+     * @param snapshotCount         The number of rows in the snapshot.
+     * @param newVisible            The sorted keys of the snapshot rows passing the filter.
+     * @param newVisibleCount       The number of visible snapshot rows.
+     */
+    private void publishResort(int expectedGeneration, int expectedFilterVersion, long[] newSorted, int snapshotCount,
+                               long[] newVisible, int newVisibleCount) {
+        if (expectedGeneration != generation) {
+            return;
+        }
+        long publishStart = System.nanoTime();
+        resortPending = false;
+
+        long[] oldVisible = visibleKeys;
+        int oldCount = visibleCount;
+        sortedKeys = newSorted;
+        sortedCount = snapshotCount;
+        visibleKeys = newVisible;
+        visibleCount = newVisibleCount;
+
+        dispatchReorderChanges(oldVisible, oldCount, visibleKeys, visibleCount);
+
+        // The filter may have changed while sorting
+        if (expectedFilterVersion != filterVersion) {
+            refilter();
+        }
+
+        for (int row = snapshotCount; row < rows.size(); row++) {
+            insertRow(row);
+        }
+        // The part of a re-sort that must fit in a frame
+        DebugMetrics.record("sort.resort_publish_ms", (System.nanoTime() - publishStart) / 1_000_000);
+    }
+
+    /**
+     * Reports the differences between two visible lists that share the same ordering, so each
+     * is a subsequence of the sorted index. Walks both lists once and emits removals and
+     * insertions for the rows that left or joined.
+     *
+     * @param oldKeys  The previous visible keys.
+     * @param oldCount The previous visible count.
+     * @param newKeys  The new visible keys.
+     * @param newCount The new visible count.
+     */
+    private void dispatchFilterChanges(long[] oldKeys, int oldCount, long[] newKeys, int newCount) {
+        if (changeListener == null) {
+            return;
+        }
+        int oldIndex = 0;
+        int newIndex = 0;
+        while (oldIndex < oldCount || newIndex < newCount) {
+            if (oldIndex < oldCount && newIndex < newCount && oldKeys[oldIndex] == newKeys[newIndex]) {
+                oldIndex++;
+                newIndex++;
+            } else if (newIndex >= newCount || (oldIndex < oldCount && oldKeys[oldIndex] < newKeys[newIndex])) {
+                int start = oldIndex;
+                while (oldIndex < oldCount && (newIndex >= newCount || oldKeys[oldIndex] < newKeys[newIndex])) {
+                    oldIndex++;
+                }
+                changeListener.onItemRangeRemoved(newIndex, oldIndex - start);
+            } else {
+                int start = newIndex;
+                while (newIndex < newCount && (oldIndex >= oldCount || newKeys[newIndex] < oldKeys[oldIndex])) {
+                    newIndex++;
+                }
+                changeListener.onItemRangeInserted(start, newIndex - start);
+            }
+        }
+    }
+
+    /**
+     * Reports the differences between two visible lists with different orderings by comparing
+     * them position by position and emitting the runs of positions whose artist changed.
+     *
+     * @param oldKeys  The previous visible keys.
+     * @param oldCount The previous visible count.
+     * @param newKeys  The new visible keys.
+     * @param newCount The new visible count.
+     */
+    private void dispatchReorderChanges(long[] oldKeys, int oldCount, long[] newKeys, int newCount) {
+        if (changeListener == null) {
+            return;
+        }
+        int common = Math.min(oldCount, newCount);
+        int position = 0;
+        while (position < common) {
+            if (rowOf(oldKeys[position]) == rowOf(newKeys[position])) {
+                position++;
+                continue;
+            }
+            int start = position;
+            while (position < common && rowOf(oldKeys[position]) != rowOf(newKeys[position])) {
+                position++;
+            }
+            changeListener.onItemRangeChanged(start, position - start);
+        }
+        if (newCount > oldCount) {
+            changeListener.onItemRangeInserted(oldCount, newCount - oldCount);
+        } else if (oldCount > newCount) {
+            changeListener.onItemRangeRemoved(newCount, oldCount - newCount);
+        }
+    }
+
+    /**
+     * Offers a row to the top-followers heap, evicting the least-followed entry when full.
+     *
+     * @param row The newly added row.
+     */
+    private void offerTopFollower(int row) {
+        long key = keyOf(row, SortKey.FOLLOWERS_ASCENDING);
+        if (topFollowers.size() < TOP_K) {
+            topFollowers.add(key);
+        } else if (key > topFollowers.peek()) {
+            topFollowers.poll();
+            topFollowers.add(key);
+        }
+    }
+
+    /**
+     * Checks whether a row passes the current filter.
+     *
+     * @param row The row to check.
+     * @return True if the row should be visible.
+     */
+    private boolean passesFilter(int row) {
+        return followers[row] >= minFollowers && (genreMask == null || isRowSet(genreMask, row));
+    }
+
+    /**
+     * Sets or clears a newly added row's bit in the follower bitset, growing it as needed.
+     *
+     * @param row The newly added row.
+     */
+    private void updateFollowerRow(int row) {
+        int word = row >>> 6;
+        if (word >= followerRows.length) {
+            followerRows = Arrays.copyOf(followerRows, Math.max(followerRows.length * 2, word + 1));
+        }
+        if (followers[row] >= minFollowers) {
+            followerRows[word] |= 1L << row;
+        } else {
+            followerRows[word] &= ~(1L << row);
+        }
+    }
+
+    /**
+     * Rebuilds the follower bitset after the threshold changed.
+     */
+    private void rebuildFollowerRows() {
+        followerRows = new long[Math.max(GenreFacetIndex.wordCount(rows.size()), 1)];
+        for (int row = 0; row < rows.size(); row++) {
+            if (followers[row] >= minFollowers) {
+                followerRows[row >>> 6] |= 1L << row;
+            }
+        }
+    }
+
+    /**
+     * Sets or clears a newly added row's bit in the genre mask, growing the mask as needed.
+     *
+     * @param row The newly added row.
+     */
+    private void updateGenreMask(int row) {
+        int word = row >>> 6;
+        if (word >= genreMask.length) {
+            genreMask = Arrays.copyOf(genreMask, Math.max(genreMask.length * 2, word + 1));
+        }
+        if (genreIndex.matches(row, selectedGenres, matchAllGenres)) {
+            genreMask[word] |= 1L << row;
+        } else {
+            genreMask[word] &= ~(1L << row);
+        }
+    }
+
+    /**
+     * Checks whether a row's bit is set in a row bitset.
+     *
+     * @param rowBits The row bitset.
+     * @param row     The row.
+     * @return True if the bit is set.
+     */
+    private static boolean isRowSet(long[] rowBits, int row) {
+        int word = row >>> 6;
+        return word < rowBits.length && (rowBits[word] & (1L << row)) != 0;
+    }
+
+    /**
+     * Builds the sort key of a row for the given ordering.
+     *
+     * @param row The row.
+     * @param key The ordering.
+     * @return The sort key.
+     */
+    private long keyOf(int row, SortKey key) {
+        return keyOf(row, followers[row], key);
+    }
+
+    /**
+     * Builds a sort key whose natural long order matches the given ordering.
+     * The row sits in the low bits so ties keep arrival order and the row can be recovered.
+     *
+     * @param row           The row.
+     * @param followerCount The number of followers of the row's artist.
+     * @param key           The ordering.
+     * @return The sort key.
+     */
+    private static long keyOf(int row, int followerCount, SortKey key) {
+        switch (key) {
+            case FOLLOWERS_DESCENDING:
+                return ((long) (Integer.MAX_VALUE - followerCount) << ROW_BITS) | row;
+            case FOLLOWERS_ASCENDING:
+                return ((long) followerCount << ROW_BITS) | row;
+            default:
+                return row;
+        }
+    }
+
+    /**
+     * Extracts the row from a sort key.
+     *
+     * @param key The sort key.
+     * @return The row.
+     */
+    private static int rowOf(long key) {
+        return (int) (key & ROW_MASK);
+    }
+
+    /**
+     * Grows the per-row arrays when needed.
+     *
+     * @param rowCount The number of rows that must fit.
+     */
+    private void ensureRowCapacity(int rowCount) {
+        if (rowCount > followers.length) {
+            followers = Arrays.copyOf(followers, followers.length * 2);
+        }
+    }
+
+    /**
+     * Compacts an array of keys in place, keeping the order of the keys whose row is kept.
+     *
+     * @param keys     The keys.
+     * @param count    The number of keys in use.
+     * @param rowCount The number of leading rows to keep.
+     * @return The number of keys kept.
+     */
+    private static int retainRowsBelow(long[] keys, int count, int rowCount) {
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (rowOf(keys[i]) < rowCount) {
+                keys[kept++] = keys[i];
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Inserts a key into a sorted array at its binary-searched position.
+     *
+     * @param keys  The sorted keys.
+     * @param count The number of keys in use.
+     * @param key   The key to insert.
+     * @return The array holding the keys, which may be a new, larger array.
+     */
+    private static long[] insertKey(long[] keys, int count, long key) {
+        return insertKeyAt(keys, count, insertionPoint(keys, count, key), key);
+    }
+
+    /**
+     * Inserts a key into an array at the given position, growing it when full.
+     *
+     * @param keys     The keys.
+     * @param count    The number of keys in use.
+     * @param position The position to insert at.
+     * @param key      The key to insert.
+     * @return The array holding the keys, which may be a new, larger array.
+     */
+    private static long[] insertKeyAt(long[] keys, int count, int position, long key) {
+        if (count == keys.length) {
+            keys = Arrays.copyOf(keys, keys.length * 2);
+        }
+        System.arraycopy(keys, position, keys, position + 1, count - position);
+        keys[position] = key;
+        return keys;
+    }
+
+    /**
+     * Finds the position at which a key belongs in a sorted array.
+     *
+     * @param keys  The sorted keys.
+     * @param count The number of keys in use.
+     * @param key   The key to place.
+     * @return The insertion position.
+     */
+    private static int insertionPoint(long[] keys, int count, long key) {
+        int index = Arrays.binarySearch(keys, 0, count, key);
+        return index >= 0 ? index : -(index + 1);
+    }
+}
@@ -0,0 +1,303 @@
+/**
+ * BulkArtistLookup.java
+ * Function: Resolves a list of artist names to Spotify artists by running the searches through a
+ * rate-limited pool of concurrent requests that share one access token, reporting each match
+ * and the running throughput as the searches complete. Searches rejected by the API rate limit
+ * are queued again and resumed after the wait the API asks for.
+ *
+ * @author Lorenz Aparentado
+ * @since 2023-12
+ */
+package com.example.spotifyartistexplorer;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+public class BulkArtistLookup {
+
+    /**
+     * Maximum number of searches in flight at once.
+     */
+    private static final int MAX_IN_FLIGHT = 4;
+
+    /**
+     * Maximum number of searches started per second, to stay clear of the API rate limit.
+     */
+    private static final int MAX_REQUESTS_PER_SECOND = 10;
+    private static final long REQUEST_INTERVAL_MS = 1000 / MAX_REQUESTS_PER_SECOND;
+
+    /**
+     * Number of search results considered when picking the best match for a name.
+     */
+    private static final int MATCH_CANDIDATES = 5;
+
+    private final SpotifyApiHelper spotifyApiHelper;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable dispatchRunnable = this::dispatch;
+
+    private final Deque<String> waitingNames = new ArrayDeque<>();
+    private LookupCallback callback;
+    private int total;
+    private int completed;
+    private int matched;
+    private int failed;
+    private int inFlight;
+    private long startedAt;
+    private long nextRequestAt;
+    private boolean cancelled;
+
+    /**
+     * Interface for handling bulk lookup progress and results.
+     */
+    public interface LookupCallback {
+        /**
+         * Called when the search for a single name completes.
+         *
+         * @param name   The name that was looked up.
+         * @param artist The best matching artist, or null if nothing matched.
+         */
+        void onResult(String name, Artist artist);
+
+        /**
+         * Called after each completed search with the running totals.
+         *
+         * @param completed      The number of names looked up so far.
+         * @param total          The total number of names.
+         * @param namesPerSecond The throughput since the lookup started.
+         */
+        void onProgress(int completed, int total, double namesPerSecond);
+
+        /**
+         * Called once every name has been looked up.
+         *
+         * @param matched        The number of names that matched an artist.
+         * @param failed         The number of names whose search failed, so it is unknown whether they match.
+         * @param total          The total number of names.
+         * @param namesPerSecond The overall throughput.
+         */
+        void onComplete(int matched, int failed, int total, double namesPerSecond);
+    }
+
+    /**
+     * Constructor for BulkArtistLookup.
+     *
+     * @param spotifyApiHelper The helper holding the access token shared by every search.
+     */
+    public BulkArtistLookup(SpotifyApiHelper spotifyApiHelper) {
+        this.spotifyApiHelper = spotifyApiHelper;
+    }
+
+    /**
+     * Reads artist names from a plain list or a CSV export, one name per line.
+     * Only the first CSV column is used, surrounding quotes are removed, a "name" or "artist"
+     * header is skipped and duplicate names are dropped.
+     *
+     * @param inputStream The stream to read; it is not closed.
+     * @return The names in file order.
+     * @throws IOException If an error occurs while reading the stream.
+     */
+    public static List<String> readNames(InputStream inputStream) throws IOException {
+        Set<String> names = new LinkedHashSet<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        String line;
+        boolean firstLine = true;
+        while ((line = reader.readLine()) != null) {
+            String name = firstColumn(line);
+            if (firstLine && (name.equalsIgnoreCase("name") || name.equalsIgnoreCase("artist"))) {
+                firstLine = false;
+                continue;
+            }
+            firstLine = false;
+            if (!name.isEmpty()) {
+                names.add(name);
+            }
+        }
+        return new ArrayList<>(names);
+    }
+
+    /**
+     * Starts looking up the given names. Must be called on the main thread.
+     *
+     * @param names    The names to look up.
+     * @param callback The callback to handle progress and results.
+     */
+    public void start(List<String> names, LookupCallback callback) {
+        this.callback = callback;
+        waitingNames.addAll(names);
+        total = names.size();
+        startedAt = SystemClock.elapsedRealtime();
+        nextRequestAt = startedAt;
+
+        if (total == 0) {
+            callback.onComplete(0, 0, 0, 0);
+            return;
+        }
+        dispatch();
+    }
+
+    /**
+     * Stops starting new searches and drops the results of those still in flight.
+     */
+    public void cancel() {
+        cancelled = true;
+        waitingNames.clear();
+        mainHandler.removeCallbacks(dispatchRunnable);
+    }
+
+    /**
+     * Starts as many searches as the in-flight limit and the request rate allow,
+     * and schedules itself again when the rate limit is what stopped it.
+     */
+    private void dispatch() {
+        while (!cancelled && inFlight < MAX_IN_FLIGHT && !waitingNames.isEmpty()) {
+            long now = SystemClock.elapsedRealtime();
+            if (now < nextRequestAt) {
+                mainHandler.removeCallbacks(dispatchRunnable);
+                mainHandler.postDelayed(dispatchRunnable, nextRequestAt - now);
+                return;
+            }
+            nextRequestAt = Math.max(now, nextRequestAt) + REQUEST_INTERVAL_MS;
+            lookUp(waitingNames.poll());
+        }
+    }
+
+    /**
+     * Searches for a single name.
+     *
+     * @param name The name to look up.
+     */
+    private void lookUp(String name) {
+        inFlight++;
+        spotifyApiHelper.searchArtists(name, SpotifyApiHelper.getDefaultMarket(), 0, MATCH_CANDIDATES,
+                new SpotifyApiHelper.SearchCallback() {
+                    @Override
+                    public void onSuccess(List<Artist> artists) {
+                        onLookupFinished(name, pickBestMatch(name, artists), false);
+                    }
+
+                    @Override
+                    public void onError(String errorMessage) {
+                        onLookupFinished(name, null, true);
+                    }
+
+                    @Override
+                    public void onRateLimited(long retryAfterMs) {
+                        requeue(name, retryAfterMs);
+                    }
+                });
+    }
+
+    /**
+     * Puts a rate-limited name back at the head of the queue and holds every search until the
+     * wait the API asked for has passed.
+     *
+     * @param name         The name whose search was rejected.
+     * @param retryAfterMs The time the API asked to wait.
+     */
+    private void requeue(String name, long retryAfterMs) {
+        inFlight--;
+        if (cancelled) {
+            return;
+        }
+        waitingNames.addFirst(name);
+        nextRequestAt = Math.max(nextRequestAt, SystemClock.elapsedRealtime() + retryAfterMs);
+        dispatch();
+    }
+
+    /**
+     * Records a finished search, reports it and starts the next one.
+     *
+     * @param name   The name that was looked up.
+     * @param artist The best matching artist, or null if nothing matched or the search failed.
+     * @param error  True if the search failed, so the name is neither matched nor unmatched.
+     */
+    private void onLookupFinished(String name, Artist artist, boolean error) {
+        inFlight--;
+        if (cancelled) {
+            return;
+        }
+        completed++;
+        if (error) {
+            failed++;
+        } else if (artist != null) {
+            matched++;
+        }
+
+        double namesPerSecond = getNamesPerSecond();
+        callback.onResult(name, artist);
+        callback.onProgress(completed, total, namesPerSecond);
+
+        if (completed == total) {
+            callback.onComplete(matched, failed, total, namesPerSecond);
+        } else {
+            dispatch();
+        }
+    }
+
+    /**
+     * Picks the artist that best matches a name: the most-followed exact (case-insensitive)
+     * name match, or else the most relevant result.
+     *
+     * @param name    The name that was looked up.
+     * @param artists The search results in relevance order.
+     * @return The best match, or null if there were no results.
+     */
+    static Artist pickBestMatch(String name, List<Artist> artists) {
+        String normalizedName = name.trim().toLowerCase(Locale.ROOT);
+        Artist bestExactMatch = null;
+        for (Artist artist : artists) {
+            if (artist.getName().trim().toLowerCase(Locale.ROOT).equals(normalizedName)
+                    && (bestExactMatch == null || artist.getNumberOfFollowers() > bestExactMatch.getNumberOfFollowers())) {
+                bestExactMatch = artist;
+            }
+        }
+        if (bestExactMatch != null) {
+            return bestExactMatch;
+        }
+        return artists.isEmpty() ? null : artists.get(0);
+    }
+
+    /**
+     * Calculates the throughput since the lookup started.
+     *
+     * @return The number of names looked up per second.
+     */
+    private double getNamesPerSecond() {
+        long elapsedMs = Math.max(1, SystemClock.elapsedRealtime() - startedAt);
+        return completed * 1000.0 / elapsedMs;
+    }
+
+    /**
+     * Extracts the first column of a CSV line without its surrounding quotes.
+     *
+     * @param line The line to parse.
+     * @return The trimmed first column.
+     */
+    private static String firstColumn(String line) {
+        String trimmed = line.trim();
+        if (trimmed.startsWith("\"")) {
+            int closingQuote = trimmed.indexOf('"', 1);
+            while (closingQuote >= 0 && closingQuote + 1 < trimmed.length() && trimmed.charAt(closingQuote + 1) == '"') {
+                closingQuote = trimmed.indexOf('"', closingQuote + 2);
+            }
+            String quoted = closingQuote < 0 ? trimmed.substring(1) : trimmed.substring(1, closingQuote);
+            return quoted.replace("\"\"", "\"").trim();
+        }
+        int comma = trimmed.indexOf(',');
+        return (comma < 0 ? trimmed : trimmed.substring(0, comma)).trim();
+    }
+}
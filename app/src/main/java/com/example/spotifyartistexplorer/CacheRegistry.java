@@ -0,0 +1,198 @@
+/**
+ * CacheRegistry.java
+ * Function: Central registry of the app's in-memory caches. Reacts to system memory pressure by
+ * trimming the caches tier by tier, cheapest to rebuild first, and reports their byte footprint.
+ *
+ * @author Lorenz Aparentado
+ * @since 2023-12
+ */
+package com.example.spotifyartistexplorer;
+
+import android.content.ComponentCallbacks2;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+public class CacheRegistry {
+
+    private static final String TAG = "CacheRegistry";
+
+    private static CacheRegistry instance;
+
+    /**
+     * Cache tiers in trim order: a trim level that reaches a tier also trims every tier before it.
+     */
+    public enum Tier {
+        /**
+         * Decoded full-size images.
+         */
+        IMAGE_MEMORY,
+
+        /**
+         * Decoded list-row thumbnails.
+         */
+        DECODED_THUMBNAILS,
+
+        /**
+         * Parsed result pages that are not on screen.
+         */
+        RESULT_PAGES,
+
+        /**
+         * In-memory state of the on-disk stores, reloaded from disk on next use.
+         */
+        PERSISTENT_STORE
+    }
+
+    /**
+     * Interface implemented by every cache managed by the registry.
+     */
+    public interface TrimmableCache {
+        /**
+         * Gets the approximate number of heap bytes the cache currently holds.
+         *
+         * @return The byte footprint.
+         */
+        long getByteSize();
+
+        /**
+         * Releases everything the cache holds in memory.
+         */
+        void trim();
+    }
+
+    private final Map<Tier, List<TrimmableCache>> caches = new EnumMap<>(Tier.class);
+
+    /**
+     * Constructor for CacheRegistry. The app uses the shared instance; tests create their own.
+     */
+    CacheRegistry() {
+        for (Tier tier : Tier.values()) {
+            caches.put(tier, new ArrayList<>());
+        }
+    }
+
+    /**
+     * Gets the shared instance, creating it on first use.
+     *
+     * @return The shared CacheRegistry.
+     */
+    public static synchronized CacheRegistry getInstance() {
+        if (instance == null) {
+            instance = new CacheRegistry();
+        }
+        return instance;
+    }
+
+    /**
+     * Registers a cache in the given tier.
+     *
+     * @param tier  The tier the cache belongs to.
+     * @param cache The cache.
+     */
+    public synchronized void register(Tier tier, TrimmableCache cache) {
+        caches.get(tier).add(cache);
+    }
+
+    /**
+     * Removes a cache registered by a component that is going away.
+     *
+     * @param tier  The tier the cache was registered in.
+     * @param cache The cache.
+     */
+    public synchronized void unregister(Tier tier, TrimmableCache cache) {
+        caches.get(tier).remove(cache);
+    }
+
+    /**
+     * Gets the footprint of every cache in a tier.
+     *
+     * @param tier The tier.
+     * @return The tier's footprint in bytes.
+     */
+    public synchronized long getByteSize(Tier tier) {
+        long total = 0;
+        for (TrimmableCache cache : caches.get(tier)) {
+            total += cache.getByteSize();
+        }
+        return total;
+    }
+
+    /**
+     * Gets the footprint of every registered cache.
+     *
+     * @return The total footprint in bytes.
+     */
+    public synchronized long getTotalByteSize() {
+        long total = 0;
+        for (Tier tier : Tier.values()) {
+            total += getByteSize(tier);
+        }
+        return total;
+    }
+
+    /**
+     * Trims the tiers that the given ComponentCallbacks2 trim level calls for.
+     *
+     * @param level The level passed to onTrimMemory.
+     */
+    public synchronized void onTrimMemory(int level) {
+        trimTiers(getTiersToTrim(level));
+    }
+
+    /**
+     * Trims every tier, as for onLowMemory.
+     */
+    public synchronized void trimAll() {
+        trimTiers(Tier.values().length);
+    }
+
+    /**
+     * Maps a trim level to the number of tiers to trim, counted from the first tier.
+     * Levels reported while the app is in the foreground trim less than the matching
+     * background levels, because the user is still looking at the caches' contents.
+     *
+     * @param level The level passed to onTrimMemory.
+     * @return The number of tiers to trim.
+     */
+    static int getTiersToTrim(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_COMPLETE) {
+            return 4;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+            return 3;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+            return 2;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            return 1;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            return 3;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            return 2;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE) {
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Trims the first tierCount tiers in order.
+     *
+     * @param tierCount The number of tiers to trim.
+     */
+    private void trimTiers(int tierCount) {
+        if (tierCount == 0) {
+            return;
+        }
+        long before = getTotalByteSize();
+        Tier[] tiers = Tier.values();
+        for (int i = 0; i < tierCount && i < tiers.length; i++) {
+            for (TrimmableCache cache : caches.get(tiers[i])) {
+                cache.trim();
+            }
+        }
+        Log.d(TAG, "Trimmed " + tierCount + " tier(s): " + before + " -> " + getTotalByteSize() + " bytes");
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * DebugMetrics.java
+ * Function: Collects named diagnostic values (network estimates, render timings and the like)
+ * so they can be inspected in logcat under the "DebugMetrics" tag or dumped on demand.
+ *
+ * @author Lorenz Aparentado
+ * @since 2023-12
+ */
+package com.example.spotifyartistexplorer;
+
+import android.util.Log;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+public class DebugMetrics {
+
+    private static final String TAG = "DebugMetrics";
+
+    private static final Map<String, String> metrics = new TreeMap<>();
+
+    /**
+     * Records the latest value of a metric and logs it when it changed.
+     *
+     * @param name  The metric name, dot-separated by area (e.g. "network.class").
+     * @param value The value.
+     */
+    public static synchronized void record(String name, Object value) {
+        String text = String.valueOf(value);
+        if (!text.equals(metrics.put(name, text))) {
+            Log.d(TAG, name + " = " + text);
+        }
+    }
+
+    /**
+     * Gets the latest value of a metric.
+     *
+     * @param name The metric name.
+     * @return The value, or null if it was never recorded.
+     */
+    public static synchronized String get(String name) {
+        return metrics.get(name);
+    }
+
+    /**
+     * Formats every metric, one per line, in name order.
+     *
+     * @return The formatted metrics.
+     */
+    public static synchronized String dump() {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, String> entry : metrics.entrySet()) {
+            builder.append(entry.getKey()).append(" = ").append(entry.getValue()).append('\n');
+        }
+        return builder.toString();
+    }
+}
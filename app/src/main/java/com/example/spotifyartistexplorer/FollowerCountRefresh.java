@@ -0,0 +1,154 @@
+/**
+ * FollowerCountRefresh.java
+ * Function: Fetches the follower counts of a list of artist IDs in batches, keeping a bounded
+ * number of batch requests in flight and starting no batch once the time budget is spent.
+ *
+ * @author Lorenz Aparentado
+ * @since 2023-12
+ */
+package com.example.spotifyartistexplorer;
+
+import android.util.Log;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+public class FollowerCountRefresh {
+
+    private static final String TAG = "FollowerCountRefresh";
+
+    private final FollowerCountSource source;
+    private final int batchSize;
+    private final int maxInFlight;
+    private final long timeBudgetMs;
+
+    private final Map<String, Integer> followerCounts = new ConcurrentHashMap<>();
+    private final AtomicInteger failedBatches = new AtomicInteger();
+    private int batchCount;
+    private int requests;
+    private boolean startedBatchesAnswered;
+
+    /**
+     * Interface for the service the follower counts are fetched from.
+     */
+    public interface FollowerCountSource {
+        /**
+         * Fetches the follower counts of one batch of artists, answering on any thread.
+         *
+         * @param artistIds The artist IDs, at most one batch.
+         * @param callback  The callback to handle the counts or the error.
+         */
+        void getFollowerCounts(List<String> artistIds, SpotifyApiHelper.FollowerCountsCallback callback);
+    }
+
+    /**
+     * Constructor for FollowerCountRefresh.
+     *
+     * @param source       The service the counts are fetched from.
+     * @param batchSize    The maximum number of IDs per request.
+     * @param maxInFlight  The maximum number of requests in flight at once.
+     * @param timeBudgetMs The time the whole refresh may take.
+     */
+    public FollowerCountRefresh(FollowerCountSource source, int batchSize, int maxInFlight, long timeBudgetMs) {
+        this.source = source;
+        this.batchSize = batchSize;
+        this.maxInFlight = maxInFlight;
+        this.timeBudgetMs = timeBudgetMs;
+    }
+
+    /**
+     * Requests every batch, waiting for a free slot before each one, then waits for the answers
+     * to the batches it started. Batches not started when the time budget is spent or the
+     * refresh is stopped are skipped, and the wait for the answers ends with the budget.
+     *
+     * @param artistIds The artist IDs to refresh.
+     * @param isStopped Checked before each batch; true to stop starting batches.
+     */
+    public void run(List<String> artistIds, BooleanSupplier isStopped) {
+        long startedAt = System.nanoTime();
+        batchCount = (artistIds.size() + batchSize - 1) / batchSize;
+        Semaphore inFlight = new Semaphore(maxInFlight);
+
+        try {
+            for (int start = 0; start < artistIds.size(); start += batchSize) {
+                if (isStopped.getAsBoolean() || !inFlight.tryAcquire(getRemainingMs(startedAt), TimeUnit.MILLISECONDS)) {
+                    break;
+                }
+                List<String> batch = artistIds.subList(start, Math.min(start + batchSize, artistIds.size()));
+                requests++;
+                source.getFollowerCounts(batch, new SpotifyApiHelper.FollowerCountsCallback() {
+                    @Override
+                    public void onSuccess(Map<String, Integer> counts) {
+                        followerCounts.putAll(counts);
+                        inFlight.release();
+                    }
+
+                    @Override
+                    public void onError(String errorMessage) {
+                        Log.w(TAG, "Batch failed: " + errorMessage);
+                        failedBatches.incrementAndGet();
+                        inFlight.release();
+                    }
+                });
+            }
+            // Every slot is free again once each started batch was answered
+            startedBatchesAnswered = inFlight.tryAcquire(maxInFlight, getRemainingMs(startedAt), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets the counts fetched so far. Batches still in flight after the budget keep adding
+     * counts, so this is a copy.
+     *
+     * @return The follower counts by artist ID; unknown IDs are omitted.
+     */
+    public Map<String, Integer> getFollowerCounts() {
+        return new HashMap<>(followerCounts);
+    }
+
+    /**
+     * Gets the number of batch requests started.
+     *
+     * @return The request count.
+     */
+    public int getRequests() {
+        return requests;
+    }
+
+    /**
+     * Gets the number of batch requests that failed.
+     *
+     * @return The failed request count.
+     */
+    public int getFailedBatches() {
+        return failedBatches.get();
+    }
+
+    /**
+     * Checks whether every batch was requested and answered without an error, even if no
+     * artist ID is known to the service.
+     *
+     * @return True if the refresh completed.
+     */
+    public boolean isComplete() {
+        return requests == batchCount && startedBatchesAnswered && failedBatches.get() == 0;
+    }
+
+    /**
+     * Calculates how much of the time budget is left.
+     *
+     * @param startedAt The System.nanoTime() at which the refresh started.
+     * @return The remaining time in milliseconds, at least 0.
+     */
+    private long getRemainingMs(long startedAt) {
+        return Math.max(0, timeBudgetMs - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+    }
+}
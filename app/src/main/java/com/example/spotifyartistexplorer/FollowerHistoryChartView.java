@@ -0,0 +1,105 @@
+/**
+ * FollowerHistoryChartView.java
+ * Function: Draws an artist's follower history as a line chart scaled to the samples' own
+ * time and follower range, with the lowest and highest counts labelled.
+ *
+ * @author Lorenz Aparentado
+ * @since 2023-12
+ */
+package com.example.spotifyartistexplorer;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.util.AttributeSet;
+import android.view.View;
+
+import java.util.Locale;
+
+public class FollowerHistoryChartView extends View {
+
+    private static final int LINE_COLOR = 0xFF1DB954;
+    private static final int LABEL_COLOR = 0xFFB3B3B3;
+
+    private final Paint linePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint labelPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Path linePath = new Path();
+
+    private FollowerHistoryStore.Samples samples;
+    private String emptyText = "";
+
+    /**
+     * Constructor for FollowerHistoryChartView, used when inflating from XML.
+     *
+     * @param context The context the view is running in.
+     * @param attrs   The attributes of the XML tag.
+     */
+    public FollowerHistoryChartView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        float density = getResources().getDisplayMetrics().density;
+        linePaint.setColor(LINE_COLOR);
+        linePaint.setStyle(Paint.Style.STROKE);
+        linePaint.setStrokeWidth(2 * density);
+        labelPaint.setColor(LABEL_COLOR);
+        labelPaint.setTextSize(12 * density);
+    }
+
+    /**
+     * Sets the samples to draw.
+     *
+     * @param samples   The samples in time order.
+     * @param emptyText The text shown when there are fewer than two samples.
+     */
+    public void setSamples(FollowerHistoryStore.Samples samples, String emptyText) {
+        this.samples = samples;
+        this.emptyText = emptyText;
+        invalidate();
+    }
+
+    /**
+     * Draws the chart.
+     *
+     * @param canvas The canvas to draw on.
+     */
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        float labelHeight = labelPaint.getTextSize();
+        if (samples == null || samples.getCount() < 2) {
+            canvas.drawText(emptyText, getPaddingLeft(), getPaddingTop() + labelHeight, labelPaint);
+            return;
+        }
+
+        int count = samples.getCount();
+        long firstTime = samples.getTime(0);
+        long timeSpan = Math.max(1, samples.getTime(count - 1) - firstTime);
+        int minFollowers = Integer.MAX_VALUE;
+        int maxFollowers = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            minFollowers = Math.min(minFollowers, samples.getFollowers(i));
+            maxFollowers = Math.max(maxFollowers, samples.getFollowers(i));
+        }
+        long followerSpan = Math.max(1, (long) maxFollowers - minFollowers);
+
+        float left = getPaddingLeft();
+        float top = getPaddingTop() + labelHeight * 1.5f;
+        float width = getWidth() - getPaddingRight() - left;
+        float height = getHeight() - getPaddingBottom() - labelHeight * 1.5f - top;
+
+        linePath.rewind();
+        for (int i = 0; i < count; i++) {
+            float x = left + width * (samples.getTime(i) - firstTime) / timeSpan;
+            float y = top + height * (maxFollowers - samples.getFollowers(i)) / followerSpan;
+            if (i == 0) {
+                linePath.moveTo(x, y);
+            } else {
+                linePath.lineTo(x, y);
+            }
+        }
+        canvas.drawPath(linePath, linePaint);
+
+        canvas.drawText(String.format(Locale.getDefault(), "%,d", maxFollowers), left, top - labelHeight * 0.5f, labelPaint);
+        canvas.drawText(String.format(Locale.getDefault(), "%,d", minFollowers), left, top + height + labelHeight * 1.25f, labelPaint);
+    }
+}
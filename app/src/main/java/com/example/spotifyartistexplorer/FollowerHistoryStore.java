@@ -0,0 +1,619 @@
+/**
+ * FollowerHistoryStore.java
+ * Function: Append-only on-disk store of follower count samples per artist. Samples are delta and
+ * varint encoded into fixed-size blocks, and a small in-memory index of each artist's blocks lets
+ * range queries read only the blocks that overlap the range.
+ *
+ * @author Lorenz Aparentado
+ * @since 2023-12
+ */
+package com.example.spotifyartistexplorer;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class FollowerHistoryStore {
+
+    private static final String TAG = "FollowerHistoryStore";
+
+    private static final String BLOCKS_FILE_NAME = "follower_history.blocks";
+    private static final String IDS_FILE_NAME = "follower_history.ids";
+
+    /**
+     * Block layout: artist ordinal (4), sample count (2), used payload bytes (2), first time (8),
+     * last time (8), first value (4), last value (4), then the payload. The first sample lives in
+     * the header; every later sample is stored as a varint time delta followed by a zigzag varint
+     * follower delta from the previous sample. An append rewrites the header and the used
+     * payload together in one positional write, which never crosses a page since blocks are
+     * aligned fractions of a page.
+     */
+    private static final int BLOCK_SIZE = 256;
+    private static final int HEADER_SIZE = 32;
+    private static final int PAYLOAD_SIZE = BLOCK_SIZE - HEADER_SIZE;
+    private static final int MAX_SAMPLE_BYTES = 10 + 5;
+
+    private static FollowerHistoryStore instance;
+
+    private final File blocksFile;
+    private final File idsFile;
+
+    /**
+     * Guards the loaded state. trim() runs on the main thread and must not wait for a worker's
+     * append, so it only takes the lock when it is free and otherwise leaves the release to
+     * the holder.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile boolean trimRequested;
+
+    /**
+     * Heap bytes of the loaded index, updated by the lock holder so getByteSize() never waits.
+     */
+    private volatile long footprintBytes;
+
+    /**
+     * Loaded lazily and dropped by trim(); null while not loaded.
+     */
+    private RandomAccessFile blocks;
+    private FileChannel channel;
+    private Map<String, Integer> ordinals;
+    private List<ArtistBlocks> artistBlocks;
+    private int blockCount;
+
+    private final byte[] blockBuffer = new byte[BLOCK_SIZE];
+    private final byte[] sampleBuffer = new byte[MAX_SAMPLE_BYTES];
+
+    /**
+     * Samples returned by a range query, in time order.
+     */
+    public static class Samples {
+        private long[] times = new long[16];
+        private int[] followers = new int[16];
+        private int count;
+
+        /**
+         * Gets the number of samples.
+         *
+         * @return The sample count.
+         */
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * Gets the time of a sample.
+         *
+         * @param index The index of the sample.
+         * @return The time in seconds since the epoch.
+         */
+        public long getTime(int index) {
+            return times[index];
+        }
+
+        /**
+         * Gets the follower count of a sample.
+         *
+         * @param index The index of the sample.
+         * @return The follower count.
+         */
+        public int getFollowers(int index) {
+            return followers[index];
+        }
+
+        /**
+         * Appends a sample, growing the arrays as needed.
+         *
+         * @param time  The time in seconds since the epoch.
+         * @param value The follower count.
+         */
+        private void add(long time, int value) {
+            if (count == times.length) {
+                times = Arrays.copyOf(times, count * 2);
+                followers = Arrays.copyOf(followers, count * 2);
+            }
+            times[count] = time;
+            followers[count] = value;
+            count++;
+        }
+    }
+
+    /**
+     * Index of one artist's blocks, in time order, with the state of its last block.
+     */
+    private static class ArtistBlocks {
+        int[] blockNumbers = new int[2];
+        long[] firstTimes = new long[2];
+        long[] lastTimes = new long[2];
+        int size;
+
+        int lastBlockCount;
+        int lastBlockUsed;
+        int lastBlockFirstValue;
+        int lastValue;
+
+        /**
+         * Copy of the last block, read on the first append after loading; null until then.
+         */
+        byte[] lastBlock;
+
+        /**
+         * Records a block read from disk or newly allocated.
+         *
+         * @param blockNumber The number of the block.
+         * @param firstTime   The time of its first sample.
+         * @param lastTime    The time of its last sample.
+         */
+        void addBlock(int blockNumber, long firstTime, long lastTime) {
+            if (size == blockNumbers.length) {
+                blockNumbers = Arrays.copyOf(blockNumbers, size * 2);
+                firstTimes = Arrays.copyOf(firstTimes, size * 2);
+                lastTimes = Arrays.copyOf(lastTimes, size * 2);
+            }
+            blockNumbers[size] = blockNumber;
+            firstTimes[size] = firstTime;
+            lastTimes[size] = lastTime;
+            size++;
+        }
+
+        /**
+         * Finds the first block that may hold samples at or after a time.
+         *
+         * @param time The time in seconds since the epoch.
+         * @return The index of the block, or size if every block ends before the time.
+         */
+        int firstBlockEndingAtOrAfter(long time) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (lastTimes[middle] < time) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * Constructor for FollowerHistoryStore.
+     *
+     * @param directory The directory holding the store files.
+     */
+    FollowerHistoryStore(File directory) {
+        blocksFile = new File(directory, BLOCKS_FILE_NAME);
+        idsFile = new File(directory, IDS_FILE_NAME);
+    }
+
+    /**
+     * Gets the shared instance, creating it on first use.
+     *
+     * @param context Any context; only the application's files directory is used.
+     * @return The shared FollowerHistoryStore.
+     */
+    public static synchronized FollowerHistoryStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new FollowerHistoryStore(context.getApplicationContext().getFilesDir());
+        }
+        return instance;
+    }
+
+    /**
+     * Appends one sample per artist, all taken at the same time. Samples not newer than the
+     * artist's last sample are ignored. Performs disk I/O, so call it off the main thread.
+     *
+     * @param followerCounts The follower counts by artist ID.
+     * @param time           The time of the samples in seconds since the epoch.
+     * @return The number of samples appended.
+     * @throws IOException If an error occurs while writing the store.
+     */
+    public int append(Map<String, Integer> followerCounts, long time) throws IOException {
+        lock.lock();
+        try {
+            ensureLoaded();
+            registerNewIds(followerCounts.keySet());
+            int appended = 0;
+            for (Map.Entry<String, Integer> entry : followerCounts.entrySet()) {
+                if (appendSample(ordinals.get(entry.getKey()), time, entry.getValue())) {
+                    appended++;
+                }
+            }
+            updateFootprint();
+            return appended;
+        } finally {
+            unlock();
+        }
+    }
+
+    /**
+     * Reads an artist's samples within a time range, decoding only the blocks that overlap it.
+     * Performs disk I/O, so call it off the main thread.
+     *
+     * @param artistId The Spotify ID of the artist.
+     * @param fromTime The start of the range in seconds since the epoch, inclusive.
+     * @param toTime   The end of the range in seconds since the epoch, inclusive.
+     * @return The samples in time order, empty if the artist has none in the range.
+     * @throws IOException If an error occurs while reading the store.
+     */
+    public Samples query(String artistId, long fromTime, long toTime) throws IOException {
+        lock.lock();
+        try {
+            ensureLoaded();
+            Samples samples = new Samples();
+            Integer ordinal = ordinals.get(artistId);
+            if (ordinal == null) {
+                return samples;
+            }
+            ArtistBlocks index = artistBlocks.get(ordinal);
+            for (int i = index.firstBlockEndingAtOrAfter(fromTime); i < index.size && index.firstTimes[i] <= toTime; i++) {
+                readBlock(index.blockNumbers[i]);
+                decodeBlock(ByteBuffer.wrap(blockBuffer), fromTime, toTime, samples);
+            }
+            return samples;
+        } finally {
+            unlock();
+        }
+    }
+
+    /**
+     * Gets the approximate number of heap bytes held by the loaded index. Never blocks, so it
+     * is safe on the main thread.
+     *
+     * @return The byte footprint, 0 while not loaded.
+     */
+    public long getByteSize() {
+        return footprintBytes;
+    }
+
+    /**
+     * Drops the in-memory index and closes the file; both are reloaded on next use. Never
+     * blocks: while an append or query holds the store, it releases the index when it finishes.
+     */
+    public void trim() {
+        trimRequested = true;
+        if (lock.tryLock()) {
+            unlock();
+        }
+    }
+
+    /**
+     * Releases the lock, first dropping the loaded state if a trim was requested meanwhile.
+     */
+    private void unlock() {
+        try {
+            if (trimRequested) {
+                trimRequested = false;
+                release();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops the in-memory index and closes the file. Called with the lock held.
+     */
+    private void release() {
+        if (blocks != null) {
+            try {
+                blocks.close();
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to close history", e);
+            }
+        }
+        blocks = null;
+        channel = null;
+        ordinals = null;
+        artistBlocks = null;
+        blockCount = 0;
+        footprintBytes = 0;
+    }
+
+    /**
+     * Recomputes the footprint of the loaded index. Called with the lock held.
+     */
+    private void updateFootprint() {
+        long bytes = 0;
+        for (ArtistBlocks index : artistBlocks) {
+            bytes += 64 + index.blockNumbers.length * 20L + (index.lastBlock == null ? 0 : BLOCK_SIZE);
+        }
+        footprintBytes = bytes + ordinals.size() * 64L;
+    }
+
+    /**
+     * Loads the artist IDs and rebuilds the block index by scanning the block headers.
+     * A trailing partial block left by a crash is cut off.
+     *
+     * @throws IOException If an error occurs while reading the store.
+     */
+    private void ensureLoaded() throws IOException {
+        if (blocks != null) {
+            return;
+        }
+        ordinals = new HashMap<>();
+        artistBlocks = new ArrayList<>();
+        if (idsFile.isFile()) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(idsFile), StandardCharsets.UTF_8))) {
+                String id;
+                while ((id = reader.readLine()) != null) {
+                    ordinals.put(id, artistBlocks.size());
+                    artistBlocks.add(new ArtistBlocks());
+                }
+            }
+        }
+
+        blocks = new RandomAccessFile(blocksFile, "rw");
+        channel = blocks.getChannel();
+        blockCount = (int) (blocks.length() / BLOCK_SIZE);
+        if (blocks.length() != (long) blockCount * BLOCK_SIZE) {
+            Log.w(TAG, "Cutting off partial block");
+            blocks.setLength((long) blockCount * BLOCK_SIZE);
+        }
+        if (blockCount > 0) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, (long) blockCount * BLOCK_SIZE);
+            for (int blockNumber = 0; blockNumber < blockCount; blockNumber++) {
+                indexBlock(buffer, blockNumber);
+            }
+        }
+        updateFootprint();
+    }
+
+    /**
+     * Adds one block header to the index.
+     *
+     * @param buffer      The mapped block file.
+     * @param blockNumber The number of the block.
+     */
+    private void indexBlock(ByteBuffer buffer, int blockNumber) {
+        int offset = blockNumber * BLOCK_SIZE;
+        int ordinal = buffer.getInt(offset);
+        int count = buffer.getShort(offset + 4) & 0xFFFF;
+        if (ordinal < 0 || ordinal >= artistBlocks.size() || count == 0) {
+            return;
+        }
+        ArtistBlocks index = artistBlocks.get(ordinal);
+        index.addBlock(blockNumber, buffer.getLong(offset + 8), buffer.getLong(offset + 16));
+        index.lastBlockCount = count;
+        index.lastBlockUsed = buffer.getShort(offset + 6) & 0xFFFF;
+        index.lastBlockFirstValue = buffer.getInt(offset + 24);
+        index.lastValue = buffer.getInt(offset + 28);
+    }
+
+    /**
+     * Gives every unknown artist ID the next ordinal and appends it to the IDs file, which is
+     * written before any block that refers to it.
+     *
+     * @param artistIds The artist IDs about to be written.
+     * @throws IOException If an error occurs while writing the IDs file.
+     */
+    private void registerNewIds(Iterable<String> artistIds) throws IOException {
+        StringBuilder newIds = new StringBuilder();
+        for (String artistId : artistIds) {
+            if (!ordinals.containsKey(artistId)) {
+                ordinals.put(artistId, artistBlocks.size());
+                artistBlocks.add(new ArtistBlocks());
+                newIds.append(artistId).append('\n');
+            }
+        }
+        if (newIds.length() > 0) {
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(idsFile, true), StandardCharsets.UTF_8)) {
+                writer.write(newIds.toString());
+            }
+        }
+    }
+
+    /**
+     * Appends a sample to the artist's last block, or to a new block when it is full.
+     *
+     * @param ordinal The ordinal of the artist.
+     * @param time    The time in seconds since the epoch.
+     * @param value   The follower count.
+     * @return True if the sample was appended, false if it was not newer than the last one.
+     * @throws IOException If an error occurs while writing the store.
+     */
+    private boolean appendSample(int ordinal, long time, int value) throws IOException {
+        ArtistBlocks index = artistBlocks.get(ordinal);
+        int last = index.size - 1;
+        if (last >= 0 && time <= index.lastTimes[last]) {
+            return false;
+        }
+
+        int length = last < 0 ? 0 : encodeSample(time - index.lastTimes[last], value - index.lastValue);
+        if (last < 0 || index.lastBlockUsed + length > PAYLOAD_SIZE) {
+            startBlock(index, ordinal, time, value);
+            return true;
+        }
+
+        byte[] block = lastBlockOf(index);
+        System.arraycopy(sampleBuffer, 0, block, HEADER_SIZE + index.lastBlockUsed, length);
+        index.lastBlockCount++;
+        index.lastBlockUsed += length;
+        index.lastTimes[last] = time;
+        index.lastValue = value;
+        putHeader(block, ordinal, index.lastBlockCount, index.lastBlockUsed,
+                index.firstTimes[last], time, index.lastBlockFirstValue, value);
+        writeFully(block, HEADER_SIZE + index.lastBlockUsed, (long) index.blockNumbers[last] * BLOCK_SIZE);
+        return true;
+    }
+
+    /**
+     * Gets the in-memory copy of an artist's last block, reading it on first use.
+     *
+     * @param index The index of the artist, with at least one block.
+     * @return The block bytes.
+     * @throws IOException If an error occurs while reading the store.
+     */
+    private byte[] lastBlockOf(ArtistBlocks index) throws IOException {
+        if (index.lastBlock == null) {
+            byte[] block = new byte[BLOCK_SIZE];
+            ByteBuffer buffer = ByteBuffer.wrap(block);
+            long position = (long) index.blockNumbers[index.size - 1] * BLOCK_SIZE;
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of history");
+                }
+            }
+            index.lastBlock = block;
+        }
+        return index.lastBlock;
+    }
+
+    /**
+     * Allocates a new block at the end of the file holding a single sample.
+     *
+     * @param index   The index of the artist.
+     * @param ordinal The ordinal of the artist.
+     * @param time    The time in seconds since the epoch.
+     * @param value   The follower count.
+     * @throws IOException If an error occurs while writing the store.
+     */
+    private void startBlock(ArtistBlocks index, int ordinal, long time, int value) throws IOException {
+        int blockNumber = blockCount++;
+        byte[] block = new byte[BLOCK_SIZE];
+        putHeader(block, ordinal, 1, 0, time, time, value, value);
+        writeFully(block, BLOCK_SIZE, (long) blockNumber * BLOCK_SIZE);
+        index.lastBlock = block;
+        index.addBlock(blockNumber, time, time);
+        index.lastBlockCount = 1;
+        index.lastBlockUsed = 0;
+        index.lastBlockFirstValue = value;
+        index.lastValue = value;
+    }
+
+    /**
+     * Writes the header into a block's bytes.
+     *
+     * @param block      The block bytes.
+     * @param ordinal    The ordinal of the artist.
+     * @param count      The number of samples in the block.
+     * @param used       The number of payload bytes in use.
+     * @param firstTime  The time of the first sample.
+     * @param lastTime   The time of the last sample.
+     * @param firstValue The follower count of the first sample.
+     * @param lastValue  The follower count of the last sample.
+     */
+    private static void putHeader(byte[] block, int ordinal, int count, int used, long firstTime, long lastTime,
+                                  int firstValue, int lastValue) {
+        ByteBuffer header = ByteBuffer.wrap(block, 0, HEADER_SIZE);
+        header.putInt(ordinal).putShort((short) count).putShort((short) used)
+                .putLong(firstTime).putLong(lastTime).putInt(firstValue).putInt(lastValue);
+    }
+
+    /**
+     * Writes the start of a block at a file position without moving the file pointer.
+     *
+     * @param block    The block bytes.
+     * @param length   The number of leading bytes to write.
+     * @param position The file offset of the block.
+     * @throws IOException If an error occurs while writing the store.
+     */
+    private void writeFully(byte[] block, int length, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(block, 0, length);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    /**
+     * Reads a whole block into the block buffer.
+     *
+     * @param blockNumber The number of the block.
+     * @throws IOException If an error occurs while reading the store.
+     */
+    private void readBlock(int blockNumber) throws IOException {
+        blocks.seek((long) blockNumber * BLOCK_SIZE);
+        blocks.readFully(blockBuffer);
+    }
+
+    /**
+     * Decodes the samples of a block that fall within a time range.
+     *
+     * @param block    The block.
+     * @param fromTime The start of the range, inclusive.
+     * @param toTime   The end of the range, inclusive.
+     * @param samples  The samples to append to.
+     */
+    private static void decodeBlock(ByteBuffer block, long fromTime, long toTime, Samples samples) {
+        int count = block.getShort(4) & 0xFFFF;
+        long time = block.getLong(8);
+        int value = block.getInt(24);
+        block.position(HEADER_SIZE);
+        for (int i = 0; i < count && time <= toTime; i++) {
+            if (i > 0) {
+                time += readVarLong(block);
+                long zigzag = readVarLong(block);
+                value += (int) ((zigzag >>> 1) ^ -(zigzag & 1));
+            }
+            if (time >= fromTime && time <= toTime) {
+                samples.add(time, value);
+            }
+        }
+    }
+
+    /**
+     * Encodes a sample's deltas into the sample buffer.
+     *
+     * @param timeDelta  The time since the previous sample, positive.
+     * @param valueDelta The follower change since the previous sample.
+     * @return The number of bytes used.
+     */
+    private int encodeSample(long timeDelta, int valueDelta) {
+        int length = writeVarLong(sampleBuffer, 0, timeDelta);
+        return writeVarLong(sampleBuffer, length, ((long) valueDelta << 1) ^ (valueDelta >> 31));
+    }
+
+    /**
+     * Writes an unsigned varint, seven bits per byte with the high bit marking continuation.
+     *
+     * @param buffer The buffer to write to.
+     * @param offset The offset of the first byte.
+     * @param value  The value, treated as unsigned.
+     * @return The offset after the last byte written.
+     */
+    private static int writeVarLong(byte[] buffer, int offset, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[offset++] = (byte) value;
+        return offset;
+    }
+
+    /**
+     * Reads an unsigned varint written by writeVarLong.
+     *
+     * @param buffer The buffer to read from.
+     * @return The value.
+     */
+    private static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,207 @@
+/**
+ * GenreFacetIndex.java
+ * Function: Interns the genres of the accumulated results to small integer IDs and keeps one
+ * bitset of rows per genre, so genre filters and facet counts are computed with word-wide
+ * bitwise operations instead of rescanning every artist.
+ *
+ * @author Lorenz Aparentado
+ * @since 2023-12
+ */
+package com.example.spotifyartistexplorer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class GenreFacetIndex {
+
+    private final Map<String, Integer> genreIds = new HashMap<>();
+    private final List<String> genreNames = new ArrayList<>();
+
+    /**
+     * Rows of each genre, indexed by genre ID; bit (row % 64) of word (row / 64) is set when the
+     * artist in that row has the genre.
+     */
+    private final List<long[]> genreRows = new ArrayList<>();
+    private int rowCount;
+
+    /**
+     * Gets the number of distinct genres seen so far.
+     *
+     * @return The genre count; genre IDs run from 0 to this count minus one.
+     */
+    public int getGenreCount() {
+        return genreNames.size();
+    }
+
+    /**
+     * Gets the name of a genre.
+     *
+     * @param genreId The genre ID.
+     * @return The genre name.
+     */
+    public String getGenreName(int genreId) {
+        return genreNames.get(genreId);
+    }
+
+    /**
+     * Removes all rows and genres.
+     */
+    public void clear() {
+        genreIds.clear();
+        genreNames.clear();
+        genreRows.clear();
+        rowCount = 0;
+    }
+
+    /**
+     * Adds the next row with its genres. Rows must be added in order, starting at 0.
+     *
+     * @param row    The row, equal to the number of rows added so far.
+     * @param genres The genres of the artist in that row.
+     */
+    public void addRow(int row, String[] genres) {
+        rowCount = row + 1;
+        for (String genre : genres) {
+            int genreId = intern(genre);
+            long[] rows = genreRows.get(genreId);
+            int word = row >>> 6;
+            if (word >= rows.length) {
+                rows = Arrays.copyOf(rows, Math.max(rows.length * 2, word + 1));
+                genreRows.set(genreId, rows);
+            }
+            rows[word] |= 1L << row;
+        }
+    }
+
+    /**
+     * Removes every row from the given row on, keeping the interned genres.
+     *
+     * @param newRowCount The number of rows to keep.
+     */
+    public void truncate(int newRowCount) {
+        if (newRowCount >= rowCount) {
+            return;
+        }
+        for (long[] rows : genreRows) {
+            clearFrom(rows, newRowCount);
+        }
+        rowCount = newRowCount;
+    }
+
+    /**
+     * Checks whether a single row matches a genre selection.
+     *
+     * @param row      The row.
+     * @param genreIds The selected genre IDs.
+     * @param matchAll True to require every selected genre, false to require any of them.
+     * @return True if the row matches.
+     */
+    public boolean matches(int row, int[] genreIds, boolean matchAll) {
+        for (int genreId : genreIds) {
+            if (hasGenre(genreId, row) != matchAll) {
+                return !matchAll;
+            }
+        }
+        return matchAll;
+    }
+
+    /**
+     * Builds the bitset of rows that match a genre selection, one word at a time.
+     *
+     * @param genreIds The selected genre IDs, at least one.
+     * @param matchAll True to intersect the genres' rows, false to unite them.
+     * @return The matching rows, sized for every row added so far.
+     */
+    public long[] buildMask(int[] genreIds, boolean matchAll) {
+        long[] mask = new long[wordCount(rowCount)];
+        if (matchAll) {
+            Arrays.fill(mask, -1L);
+        }
+        for (int genreId : genreIds) {
+            long[] rows = genreRows.get(genreId);
+            for (int word = 0; word < mask.length; word++) {
+                long bits = word < rows.length ? rows[word] : 0;
+                mask[word] = matchAll ? mask[word] & bits : mask[word] | bits;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Counts, for every genre, the rows of a base set that have the genre.
+     *
+     * @param baseRows The rows to count within.
+     * @return The counts, indexed by genre ID.
+     */
+    public int[] countFacets(long[] baseRows) {
+        int[] counts = new int[genreRows.size()];
+        for (int genreId = 0; genreId < counts.length; genreId++) {
+            long[] rows = genreRows.get(genreId);
+            int words = Math.min(rows.length, baseRows.length);
+            int count = 0;
+            for (int word = 0; word < words; word++) {
+                count += Long.bitCount(rows[word] & baseRows[word]);
+            }
+            counts[genreId] = count;
+        }
+        return counts;
+    }
+
+    /**
+     * Gets the number of 64-bit words needed for a bitset of rows.
+     *
+     * @param rowCount The number of rows.
+     * @return The number of words.
+     */
+    public static int wordCount(int rowCount) {
+        return (rowCount + 63) >>> 6;
+    }
+
+    /**
+     * Clears the bits of a row bitset from the given row on.
+     *
+     * @param rowBits The row bitset.
+     * @param fromRow The first row to clear.
+     */
+    public static void clearFrom(long[] rowBits, int fromRow) {
+        int word = fromRow >>> 6;
+        if (word >= rowBits.length) {
+            return;
+        }
+        rowBits[word] &= (1L << fromRow) - 1;
+        Arrays.fill(rowBits, word + 1, rowBits.length, 0);
+    }
+
+    /**
+     * Checks whether the artist in a row has a genre.
+     *
+     * @param genreId The genre ID.
+     * @param row     The row.
+     * @return True if the row has the genre.
+     */
+    private boolean hasGenre(int genreId, int row) {
+        long[] rows = genreRows.get(genreId);
+        int word = row >>> 6;
+        return word < rows.length && (rows[word] & (1L << row)) != 0;
+    }
+
+    /**
+     * Gets the ID of a genre, assigning the next free ID to a genre seen for the first time.
+     *
+     * @param genre The genre name.
+     * @return The genre ID.
+     */
+    private int intern(String genre) {
+        Integer genreId = genreIds.get(genre);
+        if (genreId == null) {
+            genreId = genreNames.size();
+            genreIds.put(genre, genreId);
+            genreNames.add(genre);
+            genreRows.add(new long[0]);
+        }
+        return genreId;
+    }
+}
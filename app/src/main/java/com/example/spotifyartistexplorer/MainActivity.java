@@ -17,6 +17,13 @@ import android.os.Bundle;
 
 public class MainActivity extends AppCompatActivity {
 
+    /**
+     * Launch extra that turns off ArtistRowViewPool, for before/after render timings.
+     */
+    public static final String EXTRA_DISABLE_ROW_POOL = "disable_row_pool";
+
+    private ArtistRowViewPool artistRowViewPool;
+
     /**
      * Called when the activity is starting. This is where most initialization should go.
      *
@@ -28,9 +35,19 @@ public class MainActivity extends AppCompatActivity {
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
+        artistRowViewPool = new ArtistRowViewPool(this, !getIntent().getBooleanExtra(EXTRA_DISABLE_ROW_POOL, false));
         loadInitialFragment();
     }
 
+    /**
+     * Gets the pool of artist row views shared by every artist list in this activity.
+     *
+     * @return The ArtistRowViewPool.
+     */
+    public ArtistRowViewPool getArtistRowViewPool() {
+        return artistRowViewPool;
+    }
+
     /**
      * Loads the initial fragment when the activity is created.
      */
@@ -0,0 +1,216 @@
+/**
+ * MultiMarketSearch.java
+ * Function: Sends the same artist search to several Spotify markets with a bounded number of
+ * requests in flight, merging the results by artist ID as each market answers.
+ *
+ * @author Lorenz Aparentado
+ * @since 2023-12
+ */
+package com.example.spotifyartistexplorer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class MultiMarketSearch {
+
+    /**
+     * Default number of market requests allowed in flight at once.
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 3;
+
+    private SpotifyApiHelper spotifyApiHelper;
+    private final List<String> markets;
+    private final int maxConcurrentRequests;
+
+    /**
+     * IDs of the artists already delivered for the current query, across all pages.
+     */
+    private final Set<String> seenArtistIds = new HashSet<>();
+
+    private String currentQuery;
+    private int searchGeneration;
+
+    /**
+     * Interface for handling merged results as markets answer.
+     */
+    public interface MergeCallback {
+        /**
+         * Called each time a market answers with artists that no earlier market returned.
+         *
+         * @param artists The newly seen artists, in that market's relevance order.
+         * @param market  The market that returned them.
+         */
+        void onArtistsMerged(List<Artist> artists, String market);
+
+        /**
+         * Called once every market has answered or failed.
+         *
+         * @param anyFullPage True if at least one market returned a full page, so more may follow.
+         */
+        void onComplete(boolean anyFullPage);
+
+        /**
+         * Called when the search fails in a single market; the other markets continue.
+         *
+         * @param market       The market that failed.
+         * @param errorMessage The error message describing the issue.
+         */
+        void onError(String market, String errorMessage);
+    }
+
+    /**
+     * Constructor for MultiMarketSearch.
+     *
+     * @param spotifyApiHelper      The helper used for each market's request.
+     * @param markets               The ISO 3166-1 alpha-2 country codes to search, in priority order.
+     * @param maxConcurrentRequests The maximum number of market requests in flight at once.
+     */
+    public MultiMarketSearch(SpotifyApiHelper spotifyApiHelper, String[] markets, int maxConcurrentRequests) {
+        this.spotifyApiHelper = spotifyApiHelper;
+        this.markets = Arrays.asList(markets);
+        this.maxConcurrentRequests = Math.max(1, maxConcurrentRequests);
+    }
+
+    /**
+     * Replaces the helper used from the next market request on, for example with one holding a
+     * refreshed access token.
+     *
+     * @param spotifyApiHelper The helper used for each market's request.
+     */
+    public void setSpotifyApiHelper(SpotifyApiHelper spotifyApiHelper) {
+        this.spotifyApiHelper = spotifyApiHelper;
+    }
+
+    /**
+     * Searches one page in every market. Artists already delivered for the same query are
+     * skipped, so later pages only add new artists. Must be called on the main thread.
+     *
+     * @param query    The search query for artists.
+     * @param offset   The index of the first result to return in each market.
+     * @param limit    The number of artists to request from each market.
+     * @param callback The callback to handle the merged results or errors.
+     */
+    public void search(String query, int offset, int limit, MergeCallback callback) {
+        if (!query.equals(currentQuery)) {
+            currentQuery = query;
+            seenArtistIds.clear();
+        }
+        new FanOut(++searchGeneration, query, offset, limit, callback).start();
+    }
+
+    /**
+     * Forgets artists that were delivered but dropped by the caller, so fetching their page
+     * again delivers them again.
+     *
+     * @param artists The dropped artists.
+     */
+    public void forget(List<Artist> artists) {
+        for (Artist artist : artists) {
+            seenArtistIds.remove(artist.getId());
+        }
+    }
+
+    /**
+     * Drops the results of any search still in flight.
+     */
+    public void cancel() {
+        searchGeneration++;
+    }
+
+    /**
+     * State of a single fan-out across the markets.
+     */
+    private class FanOut {
+        private final int generation;
+        private final String query;
+        private final int offset;
+        private final int limit;
+        private final MergeCallback callback;
+        private final Deque<String> waitingMarkets;
+        private int inFlight;
+        private boolean anyFullPage;
+
+        FanOut(int generation, String query, int offset, int limit, MergeCallback callback) {
+            this.generation = generation;
+            this.query = query;
+            this.offset = offset;
+            this.limit = limit;
+            this.callback = callback;
+            this.waitingMarkets = new ArrayDeque<>(markets);
+        }
+
+        /**
+         * Launches requests until the concurrency limit is reached.
+         */
+        void start() {
+            while (inFlight < maxConcurrentRequests && !waitingMarkets.isEmpty()) {
+                searchMarket(waitingMarkets.poll());
+            }
+        }
+
+        /**
+         * Searches a single market and merges its answer.
+         *
+         * @param market The market to search.
+         */
+        private void searchMarket(String market) {
+            inFlight++;
+            spotifyApiHelper.searchArtists(query, market, offset, limit, new SpotifyApiHelper.SearchCallback() {
+                @Override
+                public void onSuccess(List<Artist> artists) {
+                    if (generation != searchGeneration) {
+                        return;
+                    }
+                    anyFullPage |= artists.size() == limit;
+                    List<Artist> merged = merge(artists);
+                    if (!merged.isEmpty()) {
+                        callback.onArtistsMerged(merged, market);
+                    }
+                    onMarketFinished();
+                }
+
+                @Override
+                public void onError(String errorMessage) {
+                    if (generation != searchGeneration) {
+                        return;
+                    }
+                    callback.onError(market, errorMessage);
+                    onMarketFinished();
+                }
+            });
+        }
+
+        /**
+         * Starts the next waiting market, or reports completion when none are left.
+         */
+        private void onMarketFinished() {
+            inFlight--;
+            if (!waitingMarkets.isEmpty()) {
+                start();
+            } else if (inFlight == 0) {
+                callback.onComplete(anyFullPage);
+            }
+        }
+
+        /**
+         * Keeps only the artists no earlier market returned.
+         *
+         * @param artists The artists returned by one market.
+         * @return The artists seen for the first time.
+         */
+        private List<Artist> merge(List<Artist> artists) {
+            List<Artist> merged = new ArrayList<>();
+            for (Artist artist : artists) {
+                if (seenArtistIds.add(artist.getId())) {
+                    merged.add(artist);
+                }
+            }
+            return merged;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/**
+ * NetworkQualityEstimator.java
+ * Function: Estimates latency from the timings of small API responses and throughput from large
+ * transfers such as image downloads, and maps them to a connection class that decides page size,
+ * image resolution and prefetch depth.
+ *
+ * @author Lorenz Aparentado
+ * @since 2023-12
+ */
+package com.example.spotifyartistexplorer;
+
+public class NetworkQualityEstimator {
+
+    private static NetworkQualityEstimator instance;
+
+    /**
+     * Weight of the newest sample in the moving averages.
+     */
+    private static final double SMOOTHING = 0.3;
+
+    /**
+     * Number of samples needed before the estimate moves away from the default class.
+     */
+    private static final int MIN_SAMPLES = 2;
+
+    /**
+     * Responses smaller than this are dominated by the round trip, so they only feed the latency
+     * estimate; a 10-artist search page is about 12KB.
+     */
+    static final int MIN_THROUGHPUT_SAMPLE_BYTES = 32 * 1024;
+
+    /**
+     * Smallest share of a large response's time credited to the transfer, which bounds the
+     * throughput while the latency estimate still lags behind a network that just got faster.
+     */
+    private static final double MIN_TRANSFER_SHARE = 0.25;
+
+    /**
+     * Connection classes and the request settings used for each.
+     */
+    public enum ConnectionClass {
+        POOR(10, 150, 320, 2),
+        MODERATE(20, 150, 640, 4),
+        GOOD(20, 300, 640, 5),
+        EXCELLENT(40, 300, 640, 10);
+
+        private final int pageSize;
+        private final int thumbnailMinWidth;
+        private final int imageMaxWidth;
+        private final int prefetchDepth;
+
+        ConnectionClass(int pageSize, int thumbnailMinWidth, int imageMaxWidth, int prefetchDepth) {
+            this.pageSize = pageSize;
+            this.thumbnailMinWidth = thumbnailMinWidth;
+            this.imageMaxWidth = imageMaxWidth;
+            this.prefetchDepth = prefetchDepth;
+        }
+
+        /**
+         * Gets the number of artists to request per page.
+         *
+         * @return The page size.
+         */
+        public int getPageSize() {
+            return pageSize;
+        }
+
+        /**
+         * Gets the smallest image width, in pixels, acceptable for a list thumbnail.
+         *
+         * @return The minimum thumbnail width.
+         */
+        public int getThumbnailMinWidth() {
+            return thumbnailMinWidth;
+        }
+
+        /**
+         * Gets the largest image width, in pixels, worth downloading for the details screen.
+         *
+         * @return The maximum full-size image width.
+         */
+        public int getImageMaxWidth() {
+            return imageMaxWidth;
+        }
+
+        /**
+         * Gets how many rows before the end of the list the next page is requested.
+         *
+         * @return The prefetch depth in rows.
+         */
+        public int getPrefetchDepth() {
+            return prefetchDepth;
+        }
+    }
+
+    /**
+     * Smoothed round trip of small responses, or NaN until one was recorded.
+     */
+    private double latencyMs = Double.NaN;
+
+    /**
+     * Smoothed throughput of large responses net of the round trip, or NaN until one was recorded.
+     */
+    private double bytesPerSecond = Double.NaN;
+    private int sampleCount;
+    private ConnectionClass connectionClass = ConnectionClass.GOOD;
+
+    /**
+     * Constructor for NetworkQualityEstimator. The app uses the shared instance; tests create their own.
+     */
+    NetworkQualityEstimator() {
+        publishMetrics();
+    }
+
+    /**
+     * Gets the shared instance, creating it on first use.
+     *
+     * @return The shared NetworkQualityEstimator.
+     */
+    public static synchronized NetworkQualityEstimator getInstance() {
+        if (instance == null) {
+            instance = new NetworkQualityEstimator();
+        }
+        return instance;
+    }
+
+    /**
+     * Gets the current connection class. Requests read it when they are built, so a change
+     * only affects requests issued afterwards.
+     *
+     * @return The current connection class.
+     */
+    public synchronized ConnectionClass getConnectionClass() {
+        return connectionClass;
+    }
+
+    /**
+     * Feeds the timing of a completed request into the estimate. Small responses update the
+     * latency; large ones update the throughput, counting only the time spent beyond the
+     * usual round trip, since dividing a small body by its round trip measures latency again.
+     *
+     * @param networkTimeMs The time from sending the request to receiving the whole response.
+     * @param responseBytes The size of the response body.
+     */
+    public synchronized void recordRequest(long networkTimeMs, int responseBytes) {
+        if (networkTimeMs <= 0) {
+            return;
+        }
+        if (responseBytes < MIN_THROUGHPUT_SAMPLE_BYTES) {
+            latencyMs = smooth(latencyMs, networkTimeMs);
+        } else {
+            double roundTripMs = Double.isNaN(latencyMs) ? 0 : latencyMs;
+            double transferMs = Math.max(networkTimeMs - roundTripMs, networkTimeMs * MIN_TRANSFER_SHARE);
+            bytesPerSecond = smooth(bytesPerSecond, responseBytes * 1000.0 / transferMs);
+        }
+        sampleCount++;
+
+        if (sampleCount >= MIN_SAMPLES) {
+            connectionClass = classify(latencyMs, bytesPerSecond);
+        }
+        publishMetrics();
+    }
+
+    /**
+     * Maps latency and throughput to a connection class; the worse of the two decides.
+     * A value that was not measured yet (NaN) never lowers the class, but EXCELLENT needs a
+     * measured throughput.
+     *
+     * @param latencyMs      The smoothed round trip, or NaN.
+     * @param bytesPerSecond The smoothed throughput, or NaN.
+     * @return The connection class.
+     */
+    static ConnectionClass classify(double latencyMs, double bytesPerSecond) {
+        if (latencyMs > 1500 || bytesPerSecond < 50 * 1024) {
+            return ConnectionClass.POOR;
+        } else if (latencyMs > 600 || bytesPerSecond < 250 * 1024) {
+            return ConnectionClass.MODERATE;
+        } else if (latencyMs > 200 || bytesPerSecond < 1024 * 1024 || Double.isNaN(bytesPerSecond)) {
+            return ConnectionClass.GOOD;
+        }
+        return ConnectionClass.EXCELLENT;
+    }
+
+    /**
+     * Moves a moving average toward a new sample.
+     *
+     * @param average The current average, or NaN if there is none yet.
+     * @param sample  The new sample.
+     * @return The updated average.
+     */
+    private static double smooth(double average, double sample) {
+        return Double.isNaN(average) ? sample : average + SMOOTHING * (sample - average);
+    }
+
+    /**
+     * Publishes the estimate and the settings it selects to the debug metrics.
+     */
+    private void publishMetrics() {
+        DebugMetrics.record("network.latency_ms", Double.isNaN(latencyMs) ? "n/a" : Math.round(latencyMs));
+        DebugMetrics.record("network.throughput_kbps",
+                Double.isNaN(bytesPerSecond) ? "n/a" : Math.round(bytesPerSecond * 8 / 1000));
+        DebugMetrics.record("network.samples", sampleCount);
+        DebugMetrics.record("network.class", connectionClass);
+        DebugMetrics.record("network.page_size", connectionClass.getPageSize());
+        DebugMetrics.record("network.thumbnail_min_width", connectionClass.getThumbnailMinWidth());
+        DebugMetrics.record("network.image_max_width", connectionClass.getImageMaxWidth());
+        DebugMetrics.record("network.prefetch_depth", connectionClass.getPrefetchDepth());
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * NetworkQualityInterceptor.java
+ * Function: OkHttp network interceptor that times image downloads from request to the last byte
+ * of the body and feeds them to the NetworkQualityEstimator, which needs transfers larger than
+ * the search responses to measure throughput.
+ *
+ * @author Lorenz Aparentado
+ * @since 2023-12
+ */
+package com.example.spotifyartistexplorer;
+
+import android.os.SystemClock;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+public class NetworkQualityInterceptor implements Interceptor {
+
+    /**
+     * Times the request and wraps the response body so the transfer is recorded once fully read.
+     *
+     * @param chain The interceptor chain.
+     * @return The response with a timed body.
+     * @throws IOException If the request fails.
+     */
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        long sentAt = SystemClock.elapsedRealtime();
+        Response response = chain.proceed(chain.request());
+        ResponseBody body = response.body();
+        if (body == null || !response.isSuccessful()) {
+            return response;
+        }
+        return response.newBuilder().body(new TimedBody(body, sentAt)).build();
+    }
+
+    /**
+     * Response body that reports its size and transfer time when the end of the stream is read.
+     */
+    private static class TimedBody extends ResponseBody {
+        private final ResponseBody delegate;
+        private final long sentAt;
+        private BufferedSource source;
+
+        TimedBody(ResponseBody delegate, long sentAt) {
+            this.delegate = delegate;
+            this.sentAt = sentAt;
+        }
+
+        /**
+         * Gets the content type of the wrapped body.
+         *
+         * @return The content type, or null if unknown.
+         */
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        /**
+         * Gets the length of the wrapped body.
+         *
+         * @return The length in bytes, or -1 if unknown.
+         */
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        /**
+         * Gets the source counting the bytes read from the wrapped body.
+         *
+         * @return The counting source.
+         */
+        @Override
+        public BufferedSource source() {
+            if (source == null) {
+                source = Okio.buffer(new ForwardingSource(delegate.source()) {
+                    private long bytesRead;
+                    private boolean recorded;
+
+                    @Override
+                    public long read(Buffer sink, long byteCount) throws IOException {
+                        long read = super.read(sink, byteCount);
+                        if (read != -1) {
+                            bytesRead += read;
+                        } else if (!recorded) {
+                            recorded = true;
+                            NetworkQualityEstimator.getInstance().recordRequest(
+                                    SystemClock.elapsedRealtime() - sentAt, (int) Math.min(bytesRead, Integer.MAX_VALUE));
+                        }
+                        return read;
+                    }
+                });
+            }
+            return source;
+        }
+    }
+}
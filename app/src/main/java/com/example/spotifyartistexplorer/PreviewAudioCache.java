@@ -0,0 +1,449 @@
+/**
+ * PreviewAudioCache.java
+ * Function: Bounded on-disk cache of the first seconds of track preview clips. Prefixes are
+ * fetched ahead of time with HTTP range requests, and playback reads the cached prefix first and
+ * streams only the rest of the clip from the network.
+ *
+ * @author Lorenz Aparentado
+ * @since 2023-12
+ */
+package com.example.spotifyartistexplorer;
+
+import android.content.Context;
+import android.media.MediaDataSource;
+import android.util.Log;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class PreviewAudioCache {
+
+    private static final String TAG = "PreviewAudioCache";
+    private static final String DIRECTORY_NAME = "previews";
+
+    /**
+     * Suffix of a prefix still being downloaded; it is renamed into place once complete. Each
+     * download has its own temporary file, so two prefetches of the same clip never write into
+     * one file.
+     */
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * Bytes fetched ahead of playback: about 8 seconds of a 96 kbps preview clip, enough to
+     * start playing while the rest streams in.
+     */
+    private static final int PREFETCH_BYTES = 96 * 1024;
+
+    /**
+     * Total size the cached prefixes may take on disk; the least recently used go first.
+     */
+    private static final long MAX_CACHE_BYTES = 8 * 1024 * 1024;
+
+    /**
+     * Entry layout: the clip's total length (8, or -1 if unknown), then the clip's first bytes.
+     */
+    private static final int ENTRY_HEADER_SIZE = 8;
+
+    private static final int MAX_CONCURRENT_PREFETCHES = 2;
+    private static final int CONNECT_TIMEOUT_MS = 10 * 1000;
+    private static final int READ_TIMEOUT_MS = 15 * 1000;
+
+    private static PreviewAudioCache instance;
+
+    private final File directory;
+    private final ExecutorService prefetchExecutor = Executors.newFixedThreadPool(MAX_CONCURRENT_PREFETCHES);
+
+    /**
+     * Handle of a scheduled prefetch.
+     */
+    public static class Prefetch {
+        private volatile boolean cancelled;
+        private Future<?> future;
+
+        /**
+         * Stops the prefetch; a partially fetched prefix is discarded.
+         */
+        public void cancel() {
+            cancelled = true;
+            if (future != null) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Constructor for PreviewAudioCache. The app uses the shared instance; tests create their
+     * own on a temporary directory.
+     *
+     * @param directory The directory holding the cached prefixes.
+     */
+    PreviewAudioCache(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Gets the shared instance, creating it on first use.
+     *
+     * @param context Any context; only the application's cache directory is used.
+     * @return The shared PreviewAudioCache.
+     */
+    public static synchronized PreviewAudioCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new PreviewAudioCache(new File(context.getApplicationContext().getCacheDir(), DIRECTORY_NAME));
+        }
+        return instance;
+    }
+
+    /**
+     * Fetches the first bytes of a preview clip in the background unless they are already cached.
+     *
+     * @param previewUrl The URL of the preview clip.
+     * @return A handle that cancels the prefetch.
+     */
+    public Prefetch prefetch(String previewUrl) {
+        Prefetch prefetch = new Prefetch();
+        prefetch.future = prefetchExecutor.submit(() -> {
+            try {
+                fetchPrefix(previewUrl, prefetch);
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to prefetch preview", e);
+            }
+        });
+        return prefetch;
+    }
+
+    /**
+     * Creates a data source for playing a preview clip, reading the cached prefix first.
+     * Does no I/O: the cache entry is located and opened on MediaPlayer's thread on first read,
+     * so this is cheap on the main thread.
+     *
+     * @param previewUrl The URL of the preview clip.
+     * @return The data source; MediaPlayer closes it when released.
+     */
+    public PreviewDataSource openDataSource(String previewUrl) {
+        return new PreviewDataSource(previewUrl, directory);
+    }
+
+    /**
+     * Downloads the first PREFETCH_BYTES of a clip into a temporary file of its own and renames
+     * it into place, then trims the cache to its size limit. A download of the same clip still
+     * running, e.g. after the details screen was reopened, writes its own file and the last
+     * complete one wins.
+     *
+     * @param previewUrl The URL of the preview clip.
+     * @param prefetch   The handle checked for cancellation between chunks.
+     * @throws IOException If an error occurs while downloading or writing the prefix.
+     */
+    void fetchPrefix(String previewUrl, Prefetch prefetch) throws IOException {
+        File entry = entryFile(directory, previewUrl);
+        if (entry.length() > ENTRY_HEADER_SIZE) {
+            entry.setLastModified(System.currentTimeMillis());
+            return;
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+
+        HttpURLConnection connection = openRange(previewUrl, 0, PREFETCH_BYTES - 1);
+        File tempFile;
+        try {
+            tempFile = File.createTempFile(entry.getName() + "-", TEMP_SUFFIX, directory);
+        } catch (IOException e) {
+            connection.disconnect();
+            throw e;
+        }
+        boolean complete = false;
+        try (InputStream in = connection.getInputStream();
+             DataOutputStream out = new DataOutputStream(new FileOutputStream(tempFile))) {
+            out.writeLong(parseTotalLength(connection));
+            byte[] chunk = new byte[8192];
+            int fetched = 0;
+            int read;
+            while (fetched < PREFETCH_BYTES && !prefetch.cancelled
+                    && (read = in.read(chunk, 0, Math.min(chunk.length, PREFETCH_BYTES - fetched))) != -1) {
+                out.write(chunk, 0, read);
+                fetched += read;
+            }
+            complete = !prefetch.cancelled;
+        } finally {
+            connection.disconnect();
+            if (!complete || !tempFile.renameTo(entry)) {
+                tempFile.delete();
+            }
+        }
+        if (complete) {
+            trimToSize();
+        }
+    }
+
+    /**
+     * Deletes the least recently used prefixes until the cache fits its size limit. Prefixes
+     * still being downloaded by another prefetch are neither counted nor deleted.
+     */
+    private synchronized void trimToSize() {
+        File[] entries = directory.listFiles((dir, name) -> !name.endsWith(TEMP_SUFFIX));
+        if (entries == null) {
+            return;
+        }
+        long totalBytes = 0;
+        for (File entry : entries) {
+            totalBytes += entry.length();
+        }
+        if (totalBytes <= MAX_CACHE_BYTES) {
+            return;
+        }
+        long[] lastModified = new long[entries.length];
+        Integer[] order = new Integer[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            lastModified[i] = entries[i].lastModified();
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(lastModified[a], lastModified[b]));
+        for (int i = 0; i < order.length && totalBytes > MAX_CACHE_BYTES; i++) {
+            File entry = entries[order[i]];
+            long length = entry.length();
+            if (entry.delete()) {
+                totalBytes -= length;
+            }
+        }
+    }
+
+    /**
+     * Gets the cache file of a clip, named after a hash of its URL.
+     *
+     * @param directory  The directory holding the cached prefixes.
+     * @param previewUrl The URL of the preview clip.
+     * @return The cache file, which may not exist.
+     */
+    private static File entryFile(File directory, String previewUrl) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(previewUrl.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder();
+            for (byte b : digest) {
+                name.append(String.format("%02x", b));
+            }
+            return new File(directory, name.toString());
+        } catch (NoSuchAlgorithmException e) {
+            return new File(directory, Integer.toHexString(previewUrl.hashCode()));
+        }
+    }
+
+    /**
+     * Opens a GET request for a byte range of a clip.
+     *
+     * @param previewUrl The URL of the preview clip.
+     * @param first      The first byte to fetch.
+     * @param last       The last byte to fetch, or -1 for the rest of the clip.
+     * @return The connected request.
+     * @throws IOException If the request fails.
+     */
+    private static HttpURLConnection openRange(String previewUrl, long first, long last) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(previewUrl).openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        connection.setReadTimeout(READ_TIMEOUT_MS);
+        connection.setRequestProperty("Range", "bytes=" + first + "-" + (last < 0 ? "" : String.valueOf(last)));
+        int status = connection.getResponseCode();
+        if (status != HttpURLConnection.HTTP_PARTIAL && status != HttpURLConnection.HTTP_OK) {
+            connection.disconnect();
+            throw new IOException("Unexpected status " + status + " for preview");
+        }
+        return connection;
+    }
+
+    /**
+     * Reads the clip's total length from a Content-Range header, or from the Content-Length of
+     * a server that ignored the range.
+     *
+     * @param connection The connected request.
+     * @return The total length in bytes, or -1 if unknown.
+     * @throws IOException If the response status cannot be read.
+     */
+    private static long parseTotalLength(HttpURLConnection connection) throws IOException {
+        String contentRange = connection.getHeaderField("Content-Range");
+        if (contentRange != null) {
+            int slash = contentRange.lastIndexOf('/');
+            try {
+                return slash < 0 ? -1 : Long.parseLong(contentRange.substring(slash + 1).trim());
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        return connection.getResponseCode() == HttpURLConnection.HTTP_OK ? connection.getContentLengthLong() : -1;
+    }
+
+    /**
+     * Data source that serves a clip from its cached prefix and streams the remaining bytes
+     * from the network. Called on MediaPlayer's own thread, so blocking reads are fine here.
+     */
+    public static class PreviewDataSource extends MediaDataSource {
+        private final String previewUrl;
+        private final File directory;
+        private boolean opened;
+        private volatile boolean servedFromCache;
+        private RandomAccessFile cachedPrefix;
+        private long cachedLength;
+        private long totalLength = -1;
+
+        private HttpURLConnection connection;
+        private InputStream networkStream;
+        private long networkPosition;
+
+        /**
+         * Constructor for PreviewDataSource.
+         *
+         * @param previewUrl The URL of the preview clip.
+         * @param directory  The directory holding the cached prefixes.
+         */
+        private PreviewDataSource(String previewUrl, File directory) {
+            this.previewUrl = previewUrl;
+            this.directory = directory;
+        }
+
+        /**
+         * Checks whether playback started from a cached prefix. Meaningful once MediaPlayer
+         * has read from the source, for example when it is prepared.
+         *
+         * @return True if the clip's first bytes came from the cache.
+         */
+        public boolean isServedFromCache() {
+            return servedFromCache;
+        }
+
+        /**
+         * Locates and opens the clip's cached prefix on first use.
+         */
+        private void ensureOpened() {
+            if (opened) {
+                return;
+            }
+            opened = true;
+            File entry = entryFile(directory, previewUrl);
+            if (entry.length() > ENTRY_HEADER_SIZE) {
+                try {
+                    cachedPrefix = new RandomAccessFile(entry, "r");
+                    totalLength = cachedPrefix.readLong();
+                    cachedLength = entry.length() - ENTRY_HEADER_SIZE;
+                    entry.setLastModified(System.currentTimeMillis());
+                } catch (IOException e) {
+                    Log.w(TAG, "Ignoring unreadable preview prefix", e);
+                    closeQuietly();
+                    cachedLength = 0;
+                    totalLength = -1;
+                }
+            }
+            servedFromCache = cachedLength > 0;
+            DebugMetrics.record("preview.cache_hit", servedFromCache);
+        }
+
+        /**
+         * Reads bytes of the clip at a position.
+         *
+         * @param position The position in the clip.
+         * @param buffer   The buffer to read into.
+         * @param offset   The offset in the buffer.
+         * @param size     The maximum number of bytes to read.
+         * @return The number of bytes read, or -1 at the end of the clip.
+         * @throws IOException If the bytes cannot be read.
+         */
+        @Override
+        public synchronized int readAt(long position, byte[] buffer, int offset, int size) throws IOException {
+            ensureOpened();
+            if (size == 0) {
+                return 0;
+            }
+            if (totalLength >= 0 && position >= totalLength) {
+                return -1;
+            }
+            if (position < cachedLength) {
+                cachedPrefix.seek(ENTRY_HEADER_SIZE + position);
+                return cachedPrefix.read(buffer, offset, (int) Math.min(size, cachedLength - position));
+            }
+            if (networkStream == null || networkPosition != position) {
+                openNetworkStream(position);
+            }
+            int read = networkStream.read(buffer, offset, size);
+            if (read > 0) {
+                networkPosition += read;
+            }
+            return read;
+        }
+
+        /**
+         * Gets the length of the clip.
+         *
+         * @return The length in bytes, or -1 if unknown.
+         */
+        @Override
+        public synchronized long getSize() {
+            ensureOpened();
+            return totalLength;
+        }
+
+        /**
+         * Closes the cached prefix and any network stream.
+         */
+        @Override
+        public synchronized void close() {
+            opened = true;
+            closeQuietly();
+        }
+
+        /**
+         * Opens a range request for the rest of the clip from a position.
+         *
+         * @param position The first byte to stream.
+         * @throws IOException If the request fails.
+         */
+        private void openNetworkStream(long position) throws IOException {
+            closeNetworkStream();
+            connection = openRange(previewUrl, position, -1);
+            if (connection.getResponseCode() == HttpURLConnection.HTTP_OK && position > 0) {
+                throw new IOException("Server does not support range requests for previews");
+            }
+            if (totalLength < 0) {
+                totalLength = parseTotalLength(connection);
+            }
+            networkStream = connection.getInputStream();
+            networkPosition = position;
+        }
+
+        /**
+         * Closes the network stream, if open.
+         */
+        private void closeNetworkStream() {
+            if (connection != null) {
+                connection.disconnect();
+            }
+            connection = null;
+            networkStream = null;
+        }
+
+        /**
+         * Closes everything without reporting errors.
+         */
+        private void closeQuietly() {
+            closeNetworkStream();
+            if (cachedPrefix != null) {
+                try {
+                    cachedPrefix.close();
+                } catch (IOException e) {
+                    Log.w(TAG, "Failed to close preview prefix", e);
+                }
+                cachedPrefix = null;
+            }
+        }
+    }
+}
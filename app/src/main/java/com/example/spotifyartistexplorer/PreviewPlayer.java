@@ -0,0 +1,127 @@
+/**
+ * PreviewPlayer.java
+ * Function: Plays one track preview at a time from the PreviewAudioCache and records the time
+ * from the tap to the first audio.
+ *
+ * @author Lorenz Aparentado
+ * @since 2023-12
+ */
+package com.example.spotifyartistexplorer;
+
+import android.media.AudioAttributes;
+import android.media.MediaPlayer;
+import android.os.SystemClock;
+import android.util.Log;
+
+public class PreviewPlayer {
+
+    private static final String TAG = "PreviewPlayer";
+
+    private final PreviewAudioCache previewAudioCache;
+    private MediaPlayer mediaPlayer;
+    private String playingUrl;
+    private PlaybackListener playbackListener;
+
+    /**
+     * Interface for following which preview is playing.
+     */
+    public interface PlaybackListener {
+        /**
+         * Called when playback starts, stops or fails.
+         *
+         * @param previewUrl The URL of the preview now playing, or null if none is.
+         */
+        void onPlayingChanged(String previewUrl);
+    }
+
+    /**
+     * Constructor for PreviewPlayer.
+     *
+     * @param previewAudioCache The cache the previews are played from.
+     */
+    public PreviewPlayer(PreviewAudioCache previewAudioCache) {
+        this.previewAudioCache = previewAudioCache;
+    }
+
+    /**
+     * Sets the listener notified when the playing preview changes.
+     *
+     * @param playbackListener The listener.
+     */
+    public void setPlaybackListener(PlaybackListener playbackListener) {
+        this.playbackListener = playbackListener;
+    }
+
+    /**
+     * Plays a preview, stopping the one playing before; playing the same preview again stops it.
+     * Must be called on the main thread; the cached prefix is located and read on MediaPlayer's
+     * thread.
+     *
+     * @param previewUrl The URL of the preview clip.
+     */
+    public void toggle(String previewUrl) {
+        boolean wasPlaying = previewUrl.equals(playingUrl);
+        release();
+        if (wasPlaying) {
+            notifyPlayingChanged(null);
+            return;
+        }
+
+        long tappedAt = SystemClock.elapsedRealtime();
+        PreviewAudioCache.PreviewDataSource dataSource = previewAudioCache.openDataSource(previewUrl);
+        MediaPlayer player = new MediaPlayer();
+        mediaPlayer = player;
+        playingUrl = previewUrl;
+        player.setAudioAttributes(new AudioAttributes.Builder()
+                .setUsage(AudioAttributes.USAGE_MEDIA)
+                .setContentType(AudioAttributes.CONTENT_TYPE_MUSIC)
+                .build());
+        player.setOnPreparedListener(preparedPlayer -> {
+            preparedPlayer.start();
+            DebugMetrics.record(dataSource.isServedFromCache() ? "preview.first_audio_cached_ms" : "preview.first_audio_network_ms",
+                    SystemClock.elapsedRealtime() - tappedAt);
+        });
+        player.setOnCompletionListener(completedPlayer -> stop());
+        player.setOnErrorListener((failedPlayer, what, extra) -> {
+            Log.w(TAG, "Preview playback failed: " + what + "/" + extra);
+            stop();
+            return true;
+        });
+        player.setDataSource(dataSource);
+        player.prepareAsync();
+        notifyPlayingChanged(previewUrl);
+    }
+
+    /**
+     * Stops playback and releases the player.
+     */
+    public void stop() {
+        boolean wasPlaying = playingUrl != null;
+        release();
+        if (wasPlaying) {
+            notifyPlayingChanged(null);
+        }
+    }
+
+    /**
+     * Releases the player without notifying the listener.
+     */
+    private void release() {
+        if (mediaPlayer != null) {
+            mediaPlayer.release();
+            mediaPlayer = null;
+        }
+        playingUrl = null;
+    }
+
+    /**
+     * Notifies the listener about the playing preview.
+     *
+     * @param previewUrl The URL of the preview now playing, or null if none is.
+     */
+    private void notifyPlayingChanged(String previewUrl) {
+        if (playbackListener != null) {
+            playbackListener.onPlayingChanged(previewUrl);
+        }
+    }
+}
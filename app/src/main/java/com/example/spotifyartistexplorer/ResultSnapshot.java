@@ -0,0 +1,253 @@
+/**
+ * ResultSnapshot.java
+ * Function: Saves the last result list to a compact, versioned and checksummed binary file and
+ * reads it back through a memory-mapped buffer, so the list can be shown on cold start before
+ * any authentication or network work.
+ *
+ * @author Lorenz Aparentado
+ * @since 2023-12
+ */
+package com.example.spotifyartistexplorer;
+
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+public class ResultSnapshot {
+
+    private static final String TAG = "ResultSnapshot";
+
+    /**
+     * Layout: magic (4), version (2), reserved (2), artist count (4), payload length (4),
+     * CRC32 of the payload (4), then the payload: the query followed by each artist's
+     * ID, name, image URL and thumbnail URL as length-prefixed UTF-8, its follower count, and
+     * its genre count (2) followed by each genre as length-prefixed UTF-8.
+     * Version 2 added the thumbnail URL, version 3 the genres.
+     */
+    private static final int MAGIC = 0x53414553; // "SAES"
+    private static final short VERSION = 3;
+    private static final int HEADER_SIZE = 20;
+
+    /**
+     * Only the first screens of results are worth restoring.
+     */
+    private static final int MAX_ARTISTS = 200;
+
+    /**
+     * Runs the background writes one at a time in submission order, so they never share the
+     * temporary file and the latest snapshot is the one left in place.
+     */
+    private static final ExecutorService writeExecutor = Executors.newSingleThreadExecutor();
+
+    private final String query;
+    private final List<Artist> artists;
+
+    /**
+     * Constructs a ResultSnapshot with the given query and artists.
+     *
+     * @param query   The query the results were shown for.
+     * @param artists The artists in display order.
+     */
+    public ResultSnapshot(String query, List<Artist> artists) {
+        this.query = query;
+        this.artists = artists;
+    }
+
+    /**
+     * Gets the query the results were shown for.
+     *
+     * @return The query, which may be empty.
+     */
+    public String getQuery() {
+        return query;
+    }
+
+    /**
+     * Gets the artists in display order.
+     *
+     * @return The artists.
+     */
+    public List<Artist> getArtists() {
+        return artists;
+    }
+
+    /**
+     * Writes the snapshot on the shared background writer, after any write submitted earlier.
+     * Failures are logged.
+     *
+     * @param file The snapshot file.
+     */
+    public void writeInBackground(File file) {
+        writeExecutor.execute(() -> {
+            try {
+                write(file);
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to save snapshot", e);
+            }
+        });
+    }
+
+    /**
+     * Writes the snapshot to a temporary file and renames it over the target,
+     * so a crash mid-write never leaves a half-written snapshot behind.
+     *
+     * @param file The snapshot file.
+     * @throws IOException If an error occurs while writing the file.
+     */
+    public void write(File file) throws IOException {
+        ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream();
+        DataOutputStream payload = new DataOutputStream(payloadBytes);
+        int count = Math.min(artists.size(), MAX_ARTISTS);
+        writeString(payload, query);
+        for (int i = 0; i < count; i++) {
+            Artist artist = artists.get(i);
+            writeString(payload, artist.getId());
+            writeString(payload, artist.getName());
+            writeString(payload, artist.getImageUrl());
+            writeString(payload, artist.getThumbnailUrl());
+            payload.writeInt(artist.getNumberOfFollowers());
+            String[] genres = artist.getGenres();
+            payload.writeShort(genres.length);
+            for (String genre : genres) {
+                writeString(payload, genre);
+            }
+        }
+        payload.flush();
+        byte[] payloadArray = payloadBytes.toByteArray();
+
+        CRC32 crc = new CRC32();
+        crc.update(payloadArray, 0, payloadArray.length);
+
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(tempFile))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeShort(0);
+            out.writeInt(count);
+            out.writeInt(payloadArray.length);
+            out.writeInt((int) crc.getValue());
+            out.write(payloadArray);
+        }
+        if (!tempFile.renameTo(file)) {
+            throw new IOException("Cannot replace " + file);
+        }
+    }
+
+    /**
+     * Reads a snapshot through a memory-mapped buffer. The header is validated before the
+     * checksum so a foreign, truncated or outdated file is rejected without touching the payload.
+     *
+     * @param file The snapshot file.
+     * @return The snapshot, or null if the file is missing, outdated or corrupt.
+     */
+    public static ResultSnapshot read(File file) {
+        if (!file.isFile() || file.length() < HEADER_SIZE) {
+            return null;
+        }
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.getInt() != MAGIC || buffer.getShort() != VERSION) {
+                Log.w(TAG, "Skipping snapshot with unknown format or version");
+                return null;
+            }
+            buffer.getShort();
+            int count = buffer.getInt();
+            int payloadLength = buffer.getInt();
+            int expectedCrc = buffer.getInt();
+            if (count < 0 || count > MAX_ARTISTS || payloadLength != buffer.remaining()) {
+                Log.w(TAG, "Skipping truncated snapshot");
+                return null;
+            }
+            if (checksum(buffer, HEADER_SIZE, payloadLength) != expectedCrc) {
+                Log.w(TAG, "Skipping snapshot with bad checksum");
+                return null;
+            }
+
+            String query = readString(buffer);
+            List<Artist> artists = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String id = readString(buffer);
+                String name = readString(buffer);
+                String imageUrl = readString(buffer);
+                String thumbnailUrl = readString(buffer);
+                int followers = buffer.getInt();
+                String[] genres = new String[buffer.getShort() & 0xFFFF];
+                for (int j = 0; j < genres.length; j++) {
+                    genres[j] = readString(buffer).intern();
+                }
+                artists.add(new Artist(id, name, imageUrl, thumbnailUrl, followers, genres));
+            }
+            return new ResultSnapshot(query, artists);
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Skipping unreadable snapshot", e);
+            return null;
+        }
+    }
+
+    /**
+     * Computes the CRC32 of a region of the buffer without moving its position.
+     * Copies through a small array because CRC32.update(ByteBuffer) needs API 26.
+     *
+     * @param buffer The buffer.
+     * @param offset The start of the region.
+     * @param length The length of the region.
+     * @return The CRC32 value, truncated to an int as stored in the header.
+     */
+    private static int checksum(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer region = buffer.duplicate();
+        region.position(offset);
+        CRC32 crc = new CRC32();
+        byte[] chunk = new byte[8192];
+        int remaining = length;
+        while (remaining > 0) {
+            int chunkLength = Math.min(chunk.length, remaining);
+            region.get(chunk, 0, chunkLength);
+            crc.update(chunk, 0, chunkLength);
+            remaining -= chunkLength;
+        }
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Writes a string as an unsigned 16-bit length followed by its UTF-8 bytes.
+     *
+     * @param out   The stream to write to.
+     * @param value The string, or null for an empty string.
+     * @throws IOException If an error occurs while writing.
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, 0xFFFF);
+        out.writeShort(length);
+        out.write(bytes, 0, length);
+    }
+
+    /**
+     * Reads a string written by writeString.
+     *
+     * @param buffer The buffer to read from.
+     * @return The string.
+     */
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getShort() & 0xFFFF;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
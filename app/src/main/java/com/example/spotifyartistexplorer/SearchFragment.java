@@ -9,35 +9,125 @@
 package com.example.spotifyartistexplorer;
 
 import android.content.Context;
+import android.net.Uri;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.util.Log;
 import android.view.KeyEvent;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
 import android.view.inputmethod.EditorInfo;
 import android.view.inputmethod.InputMethodManager;
+import android.widget.AdapterView;
+import android.widget.ArrayAdapter;
+import android.widget.BaseAdapter;
+import android.widget.Button;
+import android.widget.CompoundButton;
+import android.widget.Spinner;
 import android.widget.TextView;
 
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.appcompat.app.AlertDialog;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentTransaction;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.textfield.TextInputEditText;
-import com.squareup.picasso.Picasso;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
 public class SearchFragment extends Fragment {
 
+    /**
+     * File in the app's files directory holding the last result list, restored on cold start.
+     */
+    private static final String SNAPSHOT_FILE_NAME = "last_results.snapshot";
+
     private SpotifyAuthenticator spotifyAuthenticator;
     private RecyclerView recyclerView;
     private ArtistAdapter artistAdapter;
     private SearchFragment searchFragment;
 
+    /**
+     * Sorts and filters the accumulated results; outlives the fragment's view so results
+     * survive a trip to the details screen.
+     */
+    private final ArtistSortFilterEngine sortFilterEngine = new ArtistSortFilterEngine();
+
+    private String currentQuery;
+    private int nextOffset;
+    private boolean isLoadingPage;
+    private boolean hasMorePages;
+
+    /**
+     * Row count and offset at which each requested page of the current search started, so
+     * trimmed pages can be fetched again.
+     */
+    private final List<int[]> pageStarts = new ArrayList<>();
+    private int lastVisiblePosition;
+
+    /**
+     * Drops the result pages past the visible window when memory runs low.
+     */
+    private final CacheRegistry.TrimmableCache resultTrimmer = new CacheRegistry.TrimmableCache() {
+        @Override
+        public long getByteSize() {
+            return sortFilterEngine.getByteSize();
+        }
+
+        @Override
+        public void trim() {
+            trimPagesPastWindow();
+        }
+    };
+
+    /**
+     * Whether searches fan out to every market in R.array.search_markets.
+     */
+    private boolean multiMarketEnabled;
+    private MultiMarketSearch multiMarketSearch;
+
+    private BulkArtistLookup bulkArtistLookup;
+
+    /**
+     * Incremented by every new search, so work started for an earlier search can tell it was
+     * superseded.
+     */
+    private int searchGeneration;
+    private boolean snapshotChecked;
+
+    private ArtistRowViewPool rowViewPool;
+
+    /**
+     * Uptime at which the current search was submitted, or 0 once its first results were drawn.
+     */
+    private long searchSubmittedAt;
+
+    /**
+     * Lets the user pick a name list (plain text or CSV) for a bulk lookup.
+     */
+    private final ActivityResultLauncher<String> nameListPicker =
+            registerForActivityResult(new ActivityResultContracts.GetContent(), this::importNameList);
+
     /**
      * Default constructor for the SearchFragment.
      * Required empty public constructor.
@@ -46,6 +136,17 @@ public class SearchFragment extends Fragment {
         // Required empty public constructor
     }
 
+    /**
+     * Called when the fragment is created; registers the accumulated results for trimming.
+     *
+     * @param savedInstanceState If non-null, this fragment is being re-constructed from a previous saved state.
+     */
+    @Override
+    public void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        CacheRegistry.getInstance().register(CacheRegistry.Tier.RESULT_PAGES, resultTrimmer);
+    }
+
     /**
      * Called to have the fragment instantiate its user interface view.
      *
@@ -69,19 +170,9 @@ public class SearchFragment extends Fragment {
     @Override
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
-        initializePicasso();
         initializeComponents(view);
     }
 
-    /**
-     * Initializes the Picasso library for image loading.
-     */
-    private void initializePicasso() {
-        if (Picasso.get() == null) {
-            Picasso.setSingletonInstance(new Picasso.Builder(requireContext()).build());
-        }
-    }
-
     /**
      * Initializes UI components and sets up the search functionality.
      *
@@ -91,7 +182,33 @@ public class SearchFragment extends Fragment {
         spotifyAuthenticator = new SpotifyAuthenticator(requireContext());
         searchFragment = this;
 
+        setupRecyclerView(view);
+        restoreSnapshot();
+        setupSortAndFilter(view);
+        setupMultiMarketToggle(view);
+
+        Button buttonGenres = view.findViewById(R.id.buttonGenres);
+        buttonGenres.setOnClickListener(v -> showGenreFilterDialog());
+
+        Button buttonImport = view.findViewById(R.id.buttonImportNames);
+        buttonImport.setOnClickListener(v -> nameListPicker.launch("text/*"));
+
         TextInputEditText editTextArtist = view.findViewById(R.id.editTextArtist);
+        editTextArtist.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence text, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence text, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable text) {
+                // Get rows inflated while the user is still typing
+                rowViewPool.prewarm(recyclerView);
+            }
+        });
 
         editTextArtist.setOnEditorActionListener((textView, actionId, keyEvent) -> {
             if (actionId == EditorInfo.IME_ACTION_DONE ||
@@ -99,6 +216,7 @@ public class SearchFragment extends Fragment {
                             keyEvent.getKeyCode() == KeyEvent.KEYCODE_ENTER)) {
                 String query = editTextArtist.getText().toString().trim(); // Trim to remove leading and trailing whitespaces
                 if (!query.isEmpty()) { // Check if the query is not empty
+                    startNewSearch(query);
                     authenticateSpotify(query);
                     showArtist();
                 } else {
@@ -111,6 +229,401 @@ public class SearchFragment extends Fragment {
         });
     }
 
+    /**
+     * Called when the fragment is no longer visible; saves the current results so the next
+     * cold start can show them immediately.
+     */
+    @Override
+    public void onStop() {
+        super.onStop();
+        saveSnapshot();
+    }
+
+    /**
+     * Called when the fragment is no longer in use; stops the searches still feeding the results.
+     */
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        CacheRegistry.getInstance().unregister(CacheRegistry.Tier.RESULT_PAGES, resultTrimmer);
+        if (multiMarketSearch != null) {
+            multiMarketSearch.cancel();
+        }
+        if (bulkArtistLookup != null) {
+            bulkArtistLookup.cancel();
+            bulkArtistLookup = null;
+        }
+        sortFilterEngine.shutdown();
+    }
+
+    /**
+     * Sets up the RecyclerView with an adapter that reads the sorted and filtered results
+     * and a scroll listener that requests the next page near the end of the list.
+     *
+     * @param view The root view of the fragment.
+     */
+    private void setupRecyclerView(View view) {
+        rowViewPool = ((MainActivity) requireActivity()).getArtistRowViewPool();
+        recyclerView = view.findViewById(R.id.recyclerViewArtists);
+        LinearLayoutManager layoutManager = new LinearLayoutManager(requireContext());
+        // Hand the rows to the shared pool when the view is torn down, e.g. on the way to the details screen
+        layoutManager.setRecycleChildrenOnDetach(true);
+        recyclerView.setLayoutManager(layoutManager);
+        if (rowViewPool.isEnabled()) {
+            recyclerView.setRecycledViewPool(rowViewPool.getRecycledViewPool());
+        }
+        artistAdapter = new ArtistAdapter(sortFilterEngine.getVisibleArtists(), this, rowViewPool);
+        recyclerView.setAdapter(artistAdapter);
+
+        sortFilterEngine.setChangeListener(new ArtistSortFilterEngine.ChangeListener() {
+            @Override
+            public void onItemRangeInserted(int positionStart, int itemCount) {
+                artistAdapter.notifyItemRangeInserted(positionStart, itemCount);
+            }
+
+            @Override
+            public void onItemRangeRemoved(int positionStart, int itemCount) {
+                artistAdapter.notifyItemRangeRemoved(positionStart, itemCount);
+            }
+
+            @Override
+            public void onItemRangeChanged(int positionStart, int itemCount) {
+                artistAdapter.notifyItemRangeChanged(positionStart, itemCount);
+            }
+        });
+
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                int lastVisible = layoutManager.findLastVisibleItemPosition();
+                lastVisiblePosition = Math.max(lastVisible, 0);
+                int prefetchDepth = NetworkQualityEstimator.getInstance().getConnectionClass().getPrefetchDepth();
+                if (lastVisible >= artistAdapter.getItemCount() - prefetchDepth) {
+                    loadNextPage();
+                }
+            }
+        });
+    }
+
+    /**
+     * Shows the results saved by the previous session, the first time the view is created
+     * and before any authentication or network work starts.
+     */
+    private void restoreSnapshot() {
+        if (snapshotChecked) {
+            return;
+        }
+        snapshotChecked = true;
+
+        ResultSnapshot snapshot = ResultSnapshot.read(new File(requireContext().getFilesDir(), SNAPSHOT_FILE_NAME));
+        if (snapshot == null || snapshot.getArtists().isEmpty()) {
+            return;
+        }
+        currentQuery = snapshot.getQuery();
+        displayArtists(snapshot.getArtists());
+        if (!snapshot.getQuery().isEmpty()) {
+            showResultText("Showing Results For: " + snapshot.getQuery());
+        }
+    }
+
+    /**
+     * Writes the visible results to the snapshot file on the snapshot writer thread.
+     */
+    private void saveSnapshot() {
+        List<Artist> artists = new ArrayList<>(sortFilterEngine.getVisibleArtists());
+        if (artists.isEmpty()) {
+            return;
+        }
+        ResultSnapshot snapshot = new ResultSnapshot(currentQuery == null ? "" : currentQuery, artists);
+        snapshot.writeInBackground(new File(requireContext().getFilesDir(), SNAPSHOT_FILE_NAME));
+    }
+
+    /**
+     * Sets up the sort and follower-threshold spinners.
+     *
+     * @param view The root view of the fragment.
+     */
+    private void setupSortAndFilter(View view) {
+        Spinner spinnerSort = view.findViewById(R.id.spinnerSort);
+        spinnerSort.setAdapter(createSpinnerAdapter(R.array.sort_options));
+        spinnerSort.setSelection(sortFilterEngine.getSortKey().ordinal());
+        spinnerSort.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View itemView, int position, long id) {
+                sortFilterEngine.setSortKey(ArtistSortFilterEngine.SortKey.values()[position]);
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {
+            }
+        });
+
+        int[] thresholds = getResources().getIntArray(R.array.follower_threshold_values);
+        Spinner spinnerFilter = view.findViewById(R.id.spinnerFollowerFilter);
+        spinnerFilter.setAdapter(createSpinnerAdapter(R.array.follower_threshold_options));
+        for (int i = 0; i < thresholds.length; i++) {
+            if (thresholds[i] == sortFilterEngine.getMinFollowers()) {
+                spinnerFilter.setSelection(i);
+            }
+        }
+        spinnerFilter.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View itemView, int position, long id) {
+                sortFilterEngine.setMinFollowers(thresholds[position]);
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {
+            }
+        });
+    }
+
+    /**
+     * Sets up the switch that turns the multi-market search mode on and off.
+     *
+     * @param view The root view of the fragment.
+     */
+    private void setupMultiMarketToggle(View view) {
+        CompoundButton switchMultiMarket = view.findViewById(R.id.switchMultiMarket);
+        switchMultiMarket.setChecked(multiMarketEnabled);
+        switchMultiMarket.setOnCheckedChangeListener((buttonView, isChecked) -> multiMarketEnabled = isChecked);
+    }
+
+    /**
+     * Shows the genres of the accumulated results with live facet counts. Every change is
+     * applied to the list right away, and the counts are refreshed after each change.
+     */
+    private void showGenreFilterDialog() {
+        int genreCount = sortFilterEngine.getGenreCount();
+        if (genreCount == 0) {
+            showResultText(getString(R.string.genre_filter_empty));
+            return;
+        }
+
+        // Most common genres first, in a fixed order while the dialog is open
+        int[] initialCounts = sortFilterEngine.getGenreFacetCounts();
+        Integer[] order = new Integer[genreCount];
+        for (int i = 0; i < genreCount; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(initialCounts[b], initialCounts[a]));
+
+        boolean[] checked = new boolean[genreCount];
+        for (int genreId : sortFilterEngine.getSelectedGenres()) {
+            for (int i = 0; i < genreCount; i++) {
+                checked[i] |= order[i] == genreId;
+            }
+        }
+        boolean[] matchAll = {sortFilterEngine.isMatchAllGenres()};
+        CharSequence[] labels = new CharSequence[genreCount];
+        updateGenreLabels(labels, order, initialCounts);
+
+        AlertDialog dialog = new AlertDialog.Builder(requireContext())
+                .setTitle(R.string.genres_label)
+                .setMultiChoiceItems(labels, checked, (dialogInterface, which, isChecked) -> {
+                    checked[which] = isChecked;
+                    applyGenreFilter(order, checked, matchAll[0], labels, (AlertDialog) dialogInterface);
+                })
+                .setPositiveButton(R.string.genre_filter_done, null)
+                .setNegativeButton(R.string.genre_filter_clear, (dialogInterface, which) ->
+                        sortFilterEngine.setGenreFilter(new int[0], matchAll[0]))
+                .setNeutralButton(matchAll[0] ? R.string.genre_match_all : R.string.genre_match_any, null)
+                .create();
+        dialog.show();
+
+        // Switching between AND and OR keeps the dialog open
+        Button matchButton = dialog.getButton(AlertDialog.BUTTON_NEUTRAL);
+        matchButton.setOnClickListener(v -> {
+            matchAll[0] = !matchAll[0];
+            matchButton.setText(matchAll[0] ? R.string.genre_match_all : R.string.genre_match_any);
+            applyGenreFilter(order, checked, matchAll[0], labels, dialog);
+        });
+    }
+
+    /**
+     * Applies the genres checked in the filter dialog and refreshes its facet counts.
+     *
+     * @param order    The genre IDs in dialog order.
+     * @param checked  The checked state of each dialog item.
+     * @param matchAll True to require every checked genre, false to require any of them.
+     * @param labels   The dialog item labels, updated in place.
+     * @param dialog   The genre filter dialog.
+     */
+    private void applyGenreFilter(Integer[] order, boolean[] checked, boolean matchAll, CharSequence[] labels,
+                                  AlertDialog dialog) {
+        int selectedCount = 0;
+        for (boolean isChecked : checked) {
+            selectedCount += isChecked ? 1 : 0;
+        }
+        int[] genreIds = new int[selectedCount];
+        int next = 0;
+        for (int i = 0; i < checked.length; i++) {
+            if (checked[i]) {
+                genreIds[next++] = order[i];
+            }
+        }
+        Arrays.sort(genreIds);
+        sortFilterEngine.setGenreFilter(genreIds, matchAll);
+
+        updateGenreLabels(labels, order, sortFilterEngine.getGenreFacetCounts());
+        ((BaseAdapter) dialog.getListView().getAdapter()).notifyDataSetChanged();
+    }
+
+    /**
+     * Writes each genre's name and facet count into the dialog labels.
+     *
+     * @param labels The dialog item labels.
+     * @param order  The genre IDs in dialog order.
+     * @param counts The facet counts, indexed by genre ID.
+     */
+    private void updateGenreLabels(CharSequence[] labels, Integer[] order, int[] counts) {
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = sortFilterEngine.getGenreName(order[i]) + " (" + counts[order[i]] + ")";
+        }
+    }
+
+    /**
+     * Creates a spinner adapter for a string array resource.
+     *
+     * @param arrayResId The resource ID of the string array.
+     * @return The spinner adapter.
+     */
+    private ArrayAdapter<CharSequence> createSpinnerAdapter(int arrayResId) {
+        ArrayAdapter<CharSequence> adapter = ArrayAdapter.createFromResource(requireContext(), arrayResId, R.layout.item_spinner);
+        adapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        return adapter;
+    }
+
+    /**
+     * Resets the paging state and clears the previous results for a new search.
+     *
+     * @param query The search query for artists.
+     */
+    private void startNewSearch(String query) {
+        searchSubmittedAt = SystemClock.uptimeMillis();
+        rowViewPool.prewarm(recyclerView);
+        searchGeneration++;
+        currentQuery = query;
+        nextOffset = 0;
+        hasMorePages = true;
+        isLoadingPage = true;
+        pageStarts.clear();
+        if (multiMarketSearch != null) {
+            multiMarketSearch.cancel();
+        }
+        if (bulkArtistLookup != null) {
+            bulkArtistLookup.cancel();
+            bulkArtistLookup = null;
+        }
+        sortFilterEngine.clear();
+    }
+
+    /**
+     * Reads the picked name list off the main thread and starts a bulk lookup for it.
+     *
+     * @param uri The URI of the picked file, or null if the user cancelled.
+     */
+    private void importNameList(Uri uri) {
+        if (uri == null) {
+            return;
+        }
+        Context appContext = requireContext().getApplicationContext();
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        new Thread(() -> {
+            try (InputStream inputStream = appContext.getContentResolver().openInputStream(uri)) {
+                if (inputStream == null) {
+                    throw new IOException("Cannot open " + uri);
+                }
+                List<String> names = BulkArtistLookup.readNames(inputStream);
+                mainHandler.post(() -> startBulkLookup(names));
+            } catch (IOException e) {
+                Log.e("BulkArtistLookup", "Failed to read name list", e);
+            }
+        }).start();
+    }
+
+    /**
+     * Authenticates once and resolves every name in the list, adding each best match to the
+     * results and showing the progress as the searches complete.
+     *
+     * @param names The artist names to look up.
+     */
+    private void startBulkLookup(List<String> names) {
+        if (!isAdded()) {
+            return;
+        }
+        startNewSearch(null);
+        hasMorePages = false;
+        int generation = searchGeneration;
+
+        spotifyAuthenticator.authenticate(new SpotifyAuthenticator.AuthCallback() {
+            @Override
+            public void onSuccess(String accessToken) {
+                // A new search may have started, or the fragment gone, while a token was fetched
+                if (!isAdded() || generation != searchGeneration) {
+                    return;
+                }
+                runBulkLookup(accessToken, names);
+            }
+
+            @Override
+            public void onError(String errorMessage) {
+                if (generation != searchGeneration) {
+                    return;
+                }
+                isLoadingPage = false;
+                handleAuthenticationError(errorMessage);
+            }
+        });
+    }
+
+    /**
+     * Runs the bulk lookup with the given access token. Names that resolve to an artist already
+     * shown are not added again.
+     *
+     * @param accessToken The access token shared by every search.
+     * @param names       The artist names to look up.
+     */
+    private void runBulkLookup(String accessToken, List<String> names) {
+        Set<String> shownArtistIds = new HashSet<>();
+        bulkArtistLookup = new BulkArtistLookup(new SpotifyApiHelper(requireContext(), accessToken));
+        bulkArtistLookup.start(names, new BulkArtistLookup.LookupCallback() {
+            @Override
+            public void onResult(String name, Artist artist) {
+                if (artist != null && shownArtistIds.add(artist.getId())) {
+                    displayArtists(Collections.singletonList(artist));
+                }
+            }
+
+            @Override
+            public void onProgress(int completed, int total, double namesPerSecond) {
+                showResultText(String.format(Locale.US, "Looked up %d/%d (%.1f names/s)", completed, total, namesPerSecond));
+            }
+
+            @Override
+            public void onComplete(int matched, int failed, int total, double namesPerSecond) {
+                isLoadingPage = false;
+                String summary = String.format(Locale.US, "Matched %d/%d, %d failed (%.1f names/s)",
+                        matched, total, failed, namesPerSecond);
+                Log.i("BulkArtistLookup", summary);
+                showResultText(summary);
+            }
+        });
+    }
+
+    /**
+     * Requests the next page of results for the current query, if there is one. Every page
+     * authenticates again, which is served from the token cache until the token is about to
+     * expire, so paging keeps working past the token's lifetime.
+     */
+    private void loadNextPage() {
+        if (isLoadingPage || !hasMorePages || currentQuery == null) {
+            return;
+        }
+        isLoadingPage = true;
+        authenticateSpotify(currentQuery);
+    }
+
     /**
      * Authenticates the Spotify API and fetches artist information.
      *
@@ -120,11 +633,16 @@ public class SearchFragment extends Fragment {
         spotifyAuthenticator.authenticate(new SpotifyAuthenticator.AuthCallback() {
             @Override
             public void onSuccess(String accessToken) {
+                // A new search may have started while a token was fetched
+                if (!isAdded() || !query.equals(currentQuery)) {
+                    return;
+                }
                 fetchArtistInfo(accessToken, query);
             }
 
             @Override
             public void onError(String errorMessage) {
+                isLoadingPage = false;
                 handleAuthenticationError(errorMessage);
             }
         });
@@ -139,29 +657,129 @@ public class SearchFragment extends Fragment {
     private void fetchArtistInfo(String accessToken, String query) {
         SpotifyApiHelper spotifyApiHelper = new SpotifyApiHelper(requireContext(), accessToken);
 
-        spotifyApiHelper.searchArtists(query, new SpotifyApiHelper.SearchCallback() {
+        int pageSize = NetworkQualityEstimator.getInstance().getConnectionClass().getPageSize();
+        pageStarts.add(new int[]{sortFilterEngine.getRowCount(), nextOffset});
+        if (multiMarketEnabled) {
+            fetchArtistInfoInAllMarkets(spotifyApiHelper, query, pageSize);
+            return;
+        }
+
+        spotifyApiHelper.searchArtists(query, SpotifyApiHelper.getDefaultMarket(), nextOffset, pageSize, new SpotifyApiHelper.SearchCallback() {
             @Override
             public void onSuccess(List<Artist> artists) {
+                if (!isAdded() || !query.equals(currentQuery)) {
+                    return;
+                }
+                isLoadingPage = false;
+                nextOffset += artists.size();
+                hasMorePages = artists.size() == pageSize;
                 displayArtists(artists);
             }
 
             @Override
             public void onError(String errorMessage) {
+                isLoadingPage = false;
                 handleApiRequestError(errorMessage);
             }
         });
     }
 
     /**
-     * Displays the list of artists in a RecyclerView.
+     * Fetches one page of artist information from every configured market, showing each
+     * market's new artists as soon as it answers.
      *
-     * @param artists The list of artists to display.
+     * @param spotifyApiHelper The helper holding the current access token.
+     * @param query            The search query for artists.
+     * @param pageSize         The number of artists to request from each market.
+     */
+    private void fetchArtistInfoInAllMarkets(SpotifyApiHelper spotifyApiHelper, String query, int pageSize) {
+        if (multiMarketSearch == null || nextOffset == 0) {
+            multiMarketSearch = new MultiMarketSearch(spotifyApiHelper, getResources().getStringArray(R.array.search_markets),
+                    MultiMarketSearch.DEFAULT_MAX_CONCURRENT_REQUESTS);
+        } else {
+            multiMarketSearch.setSpotifyApiHelper(spotifyApiHelper);
+        }
+
+        multiMarketSearch.search(query, nextOffset, pageSize, new MultiMarketSearch.MergeCallback() {
+            @Override
+            public void onArtistsMerged(List<Artist> artists, String market) {
+                displayArtists(artists);
+            }
+
+            @Override
+            public void onComplete(boolean anyFullPage) {
+                isLoadingPage = false;
+                nextOffset += pageSize;
+                hasMorePages = anyFullPage;
+            }
+
+            @Override
+            public void onError(String market, String errorMessage) {
+                handleApiRequestError(market + ": " + errorMessage);
+            }
+        });
+    }
+
+    /**
+     * Drops the result pages that start past the visible window and its prefetch depth, and
+     * rewinds the paging state so scrolling down fetches them again. The first page and the
+     * pages above the window are kept so the scroll position does not move.
+     */
+    private void trimPagesPastWindow() {
+        // A page in flight would land after the cut
+        if (isLoadingPage) {
+            return;
+        }
+        int prefetchDepth = NetworkQualityEstimator.getInstance().getConnectionClass().getPrefetchDepth();
+        int cutoff = Math.max(sortFilterEngine.getRowCountCovering(lastVisiblePosition + 1 + prefetchDepth), 1);
+        for (int i = 0; i < pageStarts.size(); i++) {
+            int[] page = pageStarts.get(i);
+            if (page[0] >= cutoff && page[0] < sortFilterEngine.getRowCount()) {
+                List<Artist> dropped = sortFilterEngine.truncateRows(page[0]);
+                if (multiMarketSearch != null) {
+                    multiMarketSearch.forget(dropped);
+                }
+                nextOffset = page[1];
+                hasMorePages = true;
+                pageStarts.subList(i, pageStarts.size()).clear();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Adds a page of artists to the sorted and filtered results shown in the RecyclerView.
+     *
+     * @param artists The page of artists to display.
      */
     private void displayArtists(List<Artist> artists) {
-        recyclerView = requireView().findViewById(R.id.recyclerViewArtists);
-        recyclerView.setLayoutManager(new LinearLayoutManager(requireContext()));
-        artistAdapter = new ArtistAdapter(artists, this);
-        recyclerView.setAdapter(artistAdapter);
+        sortFilterEngine.addPage(artists);
+        if (searchSubmittedAt != 0 && !artists.isEmpty()) {
+            measureFirstResultRender(searchSubmittedAt);
+            searchSubmittedAt = 0;
+        }
+    }
+
+    /**
+     * Records the time from submitting a search until the frame showing its first results,
+     * which includes inflating and binding the first rows. Every sample is also logged under the
+     * "RenderTiming" tag with whether ArtistRowViewPool was enabled, since DebugMetrics only logs
+     * changed values.
+     *
+     * @param submittedAt The uptime at which the search was submitted.
+     */
+    private void measureFirstResultRender(long submittedAt) {
+        ViewTreeObserver observer = recyclerView.getViewTreeObserver();
+        observer.addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                recyclerView.getViewTreeObserver().removeOnPreDrawListener(this);
+                long renderMs = SystemClock.uptimeMillis() - submittedAt;
+                DebugMetrics.record("render.first_result_ms", renderMs);
+                Log.i("RenderTiming", "first_result_ms=" + renderMs + " row_pool=" + (rowViewPool.isEnabled() ? "on" : "off"));
+                return true;
+            }
+        });
     }
 
     /**
@@ -176,6 +794,19 @@ public class SearchFragment extends Fragment {
         hideKeyboard(editTextArtist);
     }
 
+    /**
+     * Shows a status line in the result header, if the view still exists.
+     *
+     * @param text The text to show.
+     */
+    private void showResultText(String text) {
+        View view = getView();
+        if (view != null) {
+            TextView textViewResult = view.findViewById(R.id.textViewResult);
+            textViewResult.setText(text);
+        }
+    }
+
     /**
      * Hides the soft keyboard.
      *
@@ -214,7 +845,7 @@ public class SearchFragment extends Fragment {
      * @param artist The selected artist for detailed information.
      */
     public void launchArtistDetailsFragment(Artist artist) {
-        ArtistDetailsFragment detailsFragment = ArtistDetailsFragment.newInstance(artist.getName(), artist.getNumberOfFollowers(), artist.getImageUrl());
+        ArtistDetailsFragment detailsFragment = ArtistDetailsFragment.newInstance(artist);
         replaceFragment(detailsFragment);
     }
 
@@ -0,0 +1,111 @@
+/**
+ * SearchResultCache.java
+ * Function: In-memory cache of parsed search result pages keyed by request URL,
+ * shared by normal searches and the multi-market fan-out.
+ *
+ * @author Lorenz Aparentado
+ * @since 2023-12
+ */
+package com.example.spotifyartistexplorer;
+
+import android.os.SystemClock;
+import android.util.LruCache;
+
+import java.util.List;
+
+public class SearchResultCache {
+
+    private static final int MAX_ENTRIES = 64;
+    private static final long MAX_AGE_MS = 5 * 60 * 1000;
+
+    /**
+     * Rough heap cost of an Artist and its String objects, excluding the characters.
+     */
+    private static final int ARTIST_OVERHEAD_BYTES = 160;
+
+    private static final LruCache<String, Entry> cache = new LruCache<>(MAX_ENTRIES);
+
+    /**
+     * Gets a cached result page if it is present and fresh.
+     *
+     * @param url The request URL of the page.
+     * @return The cached artists, or null if there is no fresh entry.
+     */
+    public static List<Artist> get(String url) {
+        Entry entry = cache.get(url);
+        if (entry == null) {
+            return null;
+        }
+        if (SystemClock.elapsedRealtime() - entry.storedAt > MAX_AGE_MS) {
+            cache.remove(url);
+            return null;
+        }
+        return entry.artists;
+    }
+
+    /**
+     * Stores a result page.
+     *
+     * @param url     The request URL of the page.
+     * @param artists The parsed artists.
+     */
+    public static void put(String url, List<Artist> artists) {
+        cache.put(url, new Entry(artists, SystemClock.elapsedRealtime()));
+    }
+
+    /**
+     * Estimates the heap bytes held by the cached pages.
+     *
+     * @return The approximate footprint in bytes.
+     */
+    public static long getByteSize() {
+        long total = 0;
+        for (Entry entry : cache.snapshot().values()) {
+            for (Artist artist : entry.artists) {
+                total += getByteSize(artist);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Estimates the heap bytes held by a single parsed artist.
+     *
+     * @param artist The artist.
+     * @return The approximate footprint in bytes.
+     */
+    static long getByteSize(Artist artist) {
+        return ARTIST_OVERHEAD_BYTES + 2L * (length(artist.getId()) + length(artist.getName())
+                + length(artist.getImageUrl()) + length(artist.getThumbnailUrl()));
+    }
+
+    /**
+     * Removes every cached page.
+     */
+    public static void clear() {
+        cache.evictAll();
+    }
+
+    /**
+     * Gets the length of a possibly null string.
+     *
+     * @param value The string.
+     * @return Its length, or 0 if it is null.
+     */
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    /**
+     * Cached page together with the time it was stored.
+     */
+    private static class Entry {
+        final List<Artist> artists;
+        final long storedAt;
+
+        Entry(List<Artist> artists, long storedAt) {
+            this.artists = artists;
+            this.storedAt = storedAt;
+        }
+    }
+}
@@ -9,13 +9,14 @@
 package com.example.spotifyartistexplorer;
 
 import android.content.Context;
+import android.net.Uri;
 
+import com.android.volley.NetworkResponse;
 import com.android.volley.Request;
 import com.android.volley.RequestQueue;
 import com.android.volley.Response;
 import com.android.volley.VolleyError;
 import com.android.volley.toolbox.JsonObjectRequest;
-import com.android.volley.toolbox.Volley;
 
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -28,13 +29,28 @@ import java.util.Map;
 
 public class SpotifyApiHelper {
 
-    private static final String BASE_URL = "https://api.spotify.com/v1/search";
+    private static final String SEARCH_PATH = "/search";
+    private static final String ARTISTS_PATH = "/artists";
+
+    /**
+     * Maximum number of IDs the several-artists endpoint accepts per request.
+     */
+    private static final int MAX_IDS_PER_REQUEST = 50;
     private static final String SEARCH_TYPE = "artist";
-    private static final String MARKET = "US";
-    private static final int LIMIT = 20;
+    private static final String DEFAULT_MARKET = "US";
+    private static final String TOP_TRACKS_PATH = "/top-tracks";
+
+    /**
+     * Status Spotify answers with when the app exceeds its rate limit, with a Retry-After
+     * header giving the seconds to wait.
+     */
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final String RETRY_AFTER_HEADER = "Retry-After";
+    private static final long DEFAULT_RETRY_AFTER_MS = 1000;
 
     private final Context context;
     private final String accessToken;
+    private final String baseUrl;
 
     /**
      * Constructor for SpotifyApiHelper.
@@ -45,6 +61,7 @@ public class SpotifyApiHelper {
     public SpotifyApiHelper(Context context, String accessToken) {
         this.context = context;
         this.accessToken = accessToken;
+        this.baseUrl = context.getString(R.string.spotify_api_base_url);
     }
 
     /**
@@ -64,6 +81,54 @@ public class SpotifyApiHelper {
          * @param errorMessage The error message describing the issue.
          */
         void onError(String errorMessage);
+
+        /**
+         * Called instead of onError when Spotify rejects the search because of its rate limit.
+         * By default this is reported as an error.
+         *
+         * @param retryAfterMs The time Spotify asks to wait before the next request.
+         */
+        default void onRateLimited(long retryAfterMs) {
+            onError("Rate limited, retry after " + retryAfterMs + " ms");
+        }
+    }
+
+    /**
+     * Interface for handling follower count lookups.
+     */
+    public interface FollowerCountsCallback {
+        /**
+         * Called when the follower counts were fetched.
+         *
+         * @param followerCounts The follower counts by artist ID; unknown IDs are omitted.
+         */
+        void onSuccess(Map<String, Integer> followerCounts);
+
+        /**
+         * Called when an error occurs while fetching the follower counts.
+         *
+         * @param errorMessage The error message describing the issue.
+         */
+        void onError(String errorMessage);
+    }
+
+    /**
+     * Interface for handling top-track lookups.
+     */
+    public interface TopTracksCallback {
+        /**
+         * Called when the top tracks were fetched.
+         *
+         * @param tracks The artist's top tracks, most popular first.
+         */
+        void onSuccess(List<Track> tracks);
+
+        /**
+         * Called when an error occurs while fetching the top tracks.
+         *
+         * @param errorMessage The error message describing the issue.
+         */
+        void onError(String errorMessage);
     }
 
     /**
@@ -73,37 +138,255 @@ public class SpotifyApiHelper {
      * @param callback The callback to handle the search results or errors.
      */
     public void searchArtists(String query, SearchCallback callback) {
-        String url = buildSearchUrl(query);
+        searchArtists(query, 0, callback);
+    }
+
+    /**
+     * Performs a search for one page of artists on Spotify.
+     *
+     * @param query    The search query for artists.
+     * @param offset   The index of the first result to return.
+     * @param callback The callback to handle the search results or errors.
+     */
+    public void searchArtists(String query, int offset, SearchCallback callback) {
+        searchArtists(query, DEFAULT_MARKET, offset, callback);
+    }
 
-        JsonObjectRequest jsonObjectRequest = createJsonObjectRequest(url, callback);
+    /**
+     * Performs a search for one page of artists available in the given market, sized for the
+     * current connection class.
+     *
+     * @param query    The search query for artists.
+     * @param market   The ISO 3166-1 alpha-2 country code of the market.
+     * @param offset   The index of the first result to return.
+     * @param callback The callback to handle the search results or errors.
+     */
+    public void searchArtists(String query, String market, int offset, SearchCallback callback) {
+        int pageSize = NetworkQualityEstimator.getInstance().getConnectionClass().getPageSize();
+        searchArtists(query, market, offset, pageSize, callback);
+    }
+
+    /**
+     * Performs a search for up to the given number of artists available in the given market.
+     * Pages already fetched recently are served from the shared SearchResultCache.
+     * Image variants are picked for the connection class current when the request is made,
+     * so a class change never affects a request already in flight.
+     *
+     * @param query    The search query for artists.
+     * @param market   The ISO 3166-1 alpha-2 country code of the market.
+     * @param offset   The index of the first result to return.
+     * @param limit    The maximum number of artists to return.
+     * @param callback The callback to handle the search results or errors.
+     */
+    public void searchArtists(String query, String market, int offset, int limit, SearchCallback callback) {
+        NetworkQualityEstimator.ConnectionClass connectionClass = NetworkQualityEstimator.getInstance().getConnectionClass();
+        String url = buildSearchUrl(query, market, offset, limit);
+        String cacheKey = url + "#" + connectionClass;
+
+        List<Artist> cachedArtists = SearchResultCache.get(cacheKey);
+        if (cachedArtists != null) {
+            callback.onSuccess(cachedArtists);
+            return;
+        }
+
+        JsonObjectRequest jsonObjectRequest = createJsonObjectRequest(url, cacheKey, connectionClass, callback);
 
         // Add the request to the RequestQueue
         getRequestQueue().add(jsonObjectRequest);
     }
 
     /**
-     * Creates a JsonObjectRequest for artist search.
+     * Creates a JsonObjectRequest for artist search. Its network timing feeds the
+     * NetworkQualityEstimator.
      *
-     * @param url      The URL for the artist search request.
-     * @param callback The callback to handle the response or errors.
+     * @param url             The URL for the artist search request.
+     * @param cacheKey        The key to store the parsed page under in the SearchResultCache.
+     * @param connectionClass The connection class the image variants are picked for.
+     * @param callback        The callback to handle the response or errors.
      * @return The JsonObjectRequest for the artist search.
      */
-    private JsonObjectRequest createJsonObjectRequest(String url, SearchCallback callback) {
+    private JsonObjectRequest createJsonObjectRequest(String url, String cacheKey,
+                                                      NetworkQualityEstimator.ConnectionClass connectionClass,
+                                                      SearchCallback callback) {
         return new JsonObjectRequest(Request.Method.GET, url, null,
                 response -> {
                     try {
-                        List<Artist> artists = parseResponse(response);
+                        List<Artist> artists = parseResponse(response, connectionClass);
+                        SearchResultCache.put(cacheKey, artists);
                         callback.onSuccess(artists);
                     } catch (JSONException e) {
                         callback.onError(e.getMessage());
                     }
                 },
+                error -> {
+                    long retryAfterMs = getRetryAfterMs(error);
+                    if (retryAfterMs >= 0) {
+                        callback.onRateLimited(retryAfterMs);
+                    } else {
+                        callback.onError(error.getMessage());
+                    }
+                }) {
+            @Override
+            public Map<String, String> getHeaders() {
+                return createHeaders();
+            }
+
+            @Override
+            protected Response<JSONObject> parseNetworkResponse(NetworkResponse response) {
+                NetworkQualityEstimator.getInstance().recordRequest(response.networkTimeMs,
+                        response.data == null ? 0 : response.data.length);
+                return super.parseNetworkResponse(response);
+            }
+        };
+    }
+
+    /**
+     * Gets the wait Spotify asks for when it rejected a request because of its rate limit.
+     *
+     * @param error The error the request failed with.
+     * @return The Retry-After time in milliseconds, or -1 if the request was not rate limited.
+     */
+    static long getRetryAfterMs(VolleyError error) {
+        NetworkResponse response = error.networkResponse;
+        if (response == null || response.statusCode != HTTP_TOO_MANY_REQUESTS) {
+            return -1;
+        }
+        String retryAfter = response.headers == null ? null : response.headers.get(RETRY_AFTER_HEADER);
+        if (retryAfter != null) {
+            try {
+                return Math.max(0, Long.parseLong(retryAfter.trim())) * 1000;
+            } catch (NumberFormatException e) {
+                // An HTTP date instead of seconds; fall back to the default wait
+            }
+        }
+        return DEFAULT_RETRY_AFTER_MS;
+    }
+
+    /**
+     * Fetches the current follower counts of up to 50 artists in a single request.
+     *
+     * @param artistIds The Spotify IDs of the artists, at most getMaxIdsPerRequest().
+     * @param callback  The callback to handle the follower counts or errors.
+     */
+    public void getFollowerCounts(List<String> artistIds, FollowerCountsCallback callback) {
+        if (artistIds.size() > MAX_IDS_PER_REQUEST) {
+            throw new IllegalArgumentException("At most " + MAX_IDS_PER_REQUEST + " IDs per request");
+        }
+        String url = String.format("%s%s?ids=%s", baseUrl, ARTISTS_PATH, Uri.encode(joinIds(artistIds), ","));
+
+        JsonObjectRequest jsonObjectRequest = new JsonObjectRequest(Request.Method.GET, url, null,
+                response -> {
+                    try {
+                        callback.onSuccess(parseFollowerCounts(response));
+                    } catch (JSONException e) {
+                        callback.onError(e.getMessage());
+                    }
+                },
+                error -> callback.onError(error.getMessage())) {
+            @Override
+            public Map<String, String> getHeaders() {
+                return createHeaders();
+            }
+        };
+
+        // Add the request to the RequestQueue
+        getRequestQueue().add(jsonObjectRequest);
+    }
+
+    /**
+     * Fetches an artist's top tracks in a market.
+     *
+     * @param artistId The Spotify ID of the artist.
+     * @param market   The market whose top tracks to fetch.
+     * @param callback The callback to handle the tracks or errors.
+     * @return The request, which can be cancelled when the tracks are no longer needed.
+     */
+    public Request<?> getTopTracks(String artistId, String market, TopTracksCallback callback) {
+        String url = String.format("%s%s/%s%s?market=%s", baseUrl, ARTISTS_PATH, Uri.encode(artistId), TOP_TRACKS_PATH, market);
+
+        JsonObjectRequest jsonObjectRequest = new JsonObjectRequest(Request.Method.GET, url, null,
+                response -> {
+                    try {
+                        callback.onSuccess(parseTopTracks(response));
+                    } catch (JSONException e) {
+                        callback.onError(e.getMessage());
+                    }
+                },
                 error -> callback.onError(error.getMessage())) {
             @Override
             public Map<String, String> getHeaders() {
                 return createHeaders();
             }
         };
+
+        // Add the request to the RequestQueue
+        return getRequestQueue().add(jsonObjectRequest);
+    }
+
+    /**
+     * Gets the maximum number of artist IDs accepted by getFollowerCounts.
+     *
+     * @return The batch size limit.
+     */
+    public static int getMaxIdsPerRequest() {
+        return MAX_IDS_PER_REQUEST;
+    }
+
+    /**
+     * Joins artist IDs with commas.
+     *
+     * @param artistIds The IDs to join.
+     * @return The comma-separated IDs.
+     */
+    private String joinIds(List<String> artistIds) {
+        StringBuilder builder = new StringBuilder();
+        for (String artistId : artistIds) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(artistId);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Parses the follower counts from a several-artists response.
+     * IDs Spotify does not know come back as null entries and are skipped.
+     *
+     * @param response The JSON response from the several-artists request.
+     * @return The follower counts by artist ID.
+     * @throws JSONException If an error occurs while parsing the JSON response.
+     */
+    private Map<String, Integer> parseFollowerCounts(JSONObject response) throws JSONException {
+        Map<String, Integer> followerCounts = new HashMap<>();
+        JSONArray artistsArray = response.getJSONArray("artists");
+        for (int i = 0; i < artistsArray.length(); i++) {
+            JSONObject artistObject = artistsArray.optJSONObject(i);
+            if (artistObject != null) {
+                followerCounts.put(artistObject.getString("id"), artistObject.getJSONObject("followers").getInt("total"));
+            }
+        }
+        return followerCounts;
+    }
+
+    /**
+     * Parses the tracks from a top-tracks response. Tracks without a preview keep a null
+     * preview URL.
+     *
+     * @param response The JSON response from the top-tracks request.
+     * @return The tracks in response order.
+     * @throws JSONException If an error occurs while parsing the JSON response.
+     */
+    private List<Track> parseTopTracks(JSONObject response) throws JSONException {
+        List<Track> tracks = new ArrayList<>();
+        JSONArray tracksArray = response.getJSONArray("tracks");
+        for (int i = 0; i < tracksArray.length(); i++) {
+            JSONObject trackObject = tracksArray.getJSONObject(i);
+            String previewUrl = trackObject.isNull("preview_url") ? null : trackObject.getString("preview_url");
+            tracks.add(new Track(trackObject.getString("id"), trackObject.getString("name"), previewUrl,
+                    trackObject.optInt("duration_ms"), trackObject.optInt("popularity")));
+        }
+        return tracks;
     }
 
     /**
@@ -120,49 +403,125 @@ public class SpotifyApiHelper {
     /**
      * Builds the URL for the artist search request.
      *
-     * @param query The search query for artists.
+     * @param query  The search query for artists.
+     * @param market The market to search in.
+     * @param offset The index of the first result to return.
+     * @param limit  The maximum number of artists to return.
      * @return The formatted URL for the artist search request.
      */
-    private String buildSearchUrl(String query) {
-        return String.format("%s?q=%s&type=%s&market=%s&limit=%d", BASE_URL, query, SEARCH_TYPE, MARKET, LIMIT);
+    private String buildSearchUrl(String query, String market, int offset, int limit) {
+        return String.format("%s%s?q=%s&type=%s&market=%s&limit=%d&offset=%d", baseUrl, SEARCH_PATH, Uri.encode(query), SEARCH_TYPE, market, limit, offset);
+    }
+
+    /**
+     * Gets the default market used for searches.
+     *
+     * @return The ISO 3166-1 alpha-2 country code of the default market.
+     */
+    public static String getDefaultMarket() {
+        return DEFAULT_MARKET;
     }
 
     /**
      * Parses the JSON response from the artist search request.
      *
-     * @param response The JSON response from the artist search request.
+     * @param response        The JSON response from the artist search request.
+     * @param connectionClass The connection class the image variants are picked for.
      * @return The list of artists parsed from the response.
      * @throws JSONException If an error occurs while parsing the JSON response.
      */
-    private List<Artist> parseResponse(JSONObject response) throws JSONException {
+    private List<Artist> parseResponse(JSONObject response, NetworkQualityEstimator.ConnectionClass connectionClass) throws JSONException {
         List<Artist> artists = new ArrayList<>();
         JSONObject artistsObject = response.getJSONObject("artists");
 
         JSONArray itemsArray = artistsObject.getJSONArray("items");
         for (int i = 0; i < itemsArray.length(); i++) {
             JSONObject artistObject = itemsArray.getJSONObject(i);
+            String id = artistObject.getString("id");
             String name = artistObject.getString("name");
 
             String imageUrl = "";
+            String thumbnailUrl = "";
             JSONArray imagesArray = artistObject.getJSONArray("images");
             if (imagesArray.length() > 0) {
-                imageUrl = imagesArray.getJSONObject(0).getString("url");
+                imageUrl = pickImageUrl(imagesArray, connectionClass.getImageMaxWidth());
+                thumbnailUrl = pickThumbnailUrl(imagesArray, connectionClass.getThumbnailMinWidth());
             }
 
             int followers = artistObject.getJSONObject("followers").getInt("total");
+            String[] genres = parseGenres(artistObject.optJSONArray("genres"));
 
-            artists.add(new Artist(name, imageUrl, followers));
+            artists.add(new Artist(id, name, imageUrl, thumbnailUrl, followers, genres));
         }
 
         return artists;
     }
 
     /**
-     * Gets the RequestQueue for making API requests using Volley.
+     * Parses an artist's genres, interning each name so the many artists sharing a genre
+     * share one string.
+     *
+     * @param genresArray The "genres" array of an artist object, or null if absent.
+     * @return The genres, empty if there are none.
+     * @throws JSONException If a genre is not a string.
+     */
+    private static String[] parseGenres(JSONArray genresArray) throws JSONException {
+        if (genresArray == null) {
+            return new String[0];
+        }
+        String[] genres = new String[genresArray.length()];
+        for (int i = 0; i < genres.length; i++) {
+            genres[i] = genresArray.getString(i).intern();
+        }
+        return genres;
+    }
+
+    /**
+     * Picks the widest image variant no wider than the given width, or the narrowest variant
+     * if all are wider. Spotify lists the variants widest first.
+     *
+     * @param imagesArray The non-empty images array of an artist.
+     * @param maxWidth    The largest acceptable width in pixels.
+     * @return The URL of the full-size image variant.
+     * @throws JSONException If an error occurs while parsing the JSON response.
+     */
+    private String pickImageUrl(JSONArray imagesArray, int maxWidth) throws JSONException {
+        for (int i = 0; i < imagesArray.length(); i++) {
+            JSONObject image = imagesArray.getJSONObject(i);
+            if (image.optInt("width", 0) <= maxWidth) {
+                return image.getString("url");
+            }
+        }
+        return imagesArray.getJSONObject(imagesArray.length() - 1).getString("url");
+    }
+
+    /**
+     * Picks the smallest image variant that is still wide enough for a list row.
+     * Spotify lists the variants widest first.
+     *
+     * @param imagesArray The non-empty images array of an artist.
+     * @param minWidth    The smallest acceptable width in pixels.
+     * @return The URL of the thumbnail variant.
+     * @throws JSONException If an error occurs while parsing the JSON response.
+     */
+    private String pickThumbnailUrl(JSONArray imagesArray, int minWidth) throws JSONException {
+        String thumbnailUrl = imagesArray.getJSONObject(0).getString("url");
+        for (int i = 1; i < imagesArray.length(); i++) {
+            JSONObject image = imagesArray.getJSONObject(i);
+            if (image.optInt("width", 0) < minWidth) {
+                break;
+            }
+            thumbnailUrl = image.getString("url");
+        }
+        return thumbnailUrl;
+    }
+
+    /**
+     * Gets the shared RequestQueue for making API requests using Volley.
      *
      * @return The RequestQueue.
      */
     private RequestQueue getRequestQueue() {
-        return Volley.newRequestQueue(context.getApplicationContext());
+        return SpotifyRequestQueue.getInstance(context).getRequestQueue();
     }
 }
@@ -9,18 +9,20 @@
 package com.example.spotifyartistexplorer;
 
 import android.content.Context;
+import android.os.SystemClock;
 import android.util.Base64;
 import com.android.volley.Request;
 import com.android.volley.RequestQueue;
 import com.android.volley.VolleyError;
 import com.android.volley.toolbox.StringRequest;
-import com.android.volley.toolbox.Volley;
 
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
@@ -30,6 +32,22 @@ public class SpotifyAuthenticator {
     private static String CLIENT_ID;
     private static String CLIENT_SECRET;
 
+    /**
+     * Margin before the reported expiry at which a cached token is no longer handed out.
+     */
+    private static final long TOKEN_EXPIRY_MARGIN_MS = 60 * 1000;
+
+    /**
+     * Access token shared by every authenticator instance, with its expiry time.
+     */
+    private static String cachedAccessToken;
+    private static long cachedTokenExpiresAt;
+
+    /**
+     * Callbacks waiting for the token request currently in flight, if any.
+     */
+    private static final List<AuthCallback> pendingCallbacks = new ArrayList<>();
+
     private final RequestQueue requestQueue;
     private final Context context;
 
@@ -40,7 +58,7 @@ public class SpotifyAuthenticator {
      */
     public SpotifyAuthenticator(Context context) {
         this.context = context;
-        requestQueue = Volley.newRequestQueue(context);
+        requestQueue = SpotifyRequestQueue.getInstance(context).getRequestQueue();
         loadCredentials();
     }
     /**
@@ -62,13 +80,38 @@ public class SpotifyAuthenticator {
 
     /**
      * Initiates the Spotify API authentication process.
+     * A token that is still valid is handed out directly, and callers arriving while a token
+     * request is in flight share its result instead of starting another request.
+     * Must be called on the main thread.
      *
      * @param callback The callback to handle the authentication result or errors.
      */
     public void authenticate(final AuthCallback callback) {
-        String url = BASE_URL;
+        if (cachedAccessToken != null && SystemClock.elapsedRealtime() < cachedTokenExpiresAt) {
+            callback.onSuccess(cachedAccessToken);
+            return;
+        }
+
+        pendingCallbacks.add(callback);
+        if (pendingCallbacks.size() > 1) {
+            return;
+        }
+
+        StringRequest stringRequest = createStringRequest(new AuthCallback() {
+            @Override
+            public void onSuccess(String accessToken) {
+                for (AuthCallback pending : drainPendingCallbacks()) {
+                    pending.onSuccess(accessToken);
+                }
+            }
 
-        StringRequest stringRequest = createStringRequest(callback);
+            @Override
+            public void onError(String errorMessage) {
+                for (AuthCallback pending : drainPendingCallbacks()) {
+                    pending.onError(errorMessage);
+                }
+            }
+        });
 
         // Add the request to the RequestQueue
         requestQueue.add(stringRequest);
@@ -111,12 +154,26 @@ public class SpotifyAuthenticator {
         try {
             JSONObject jsonResponse = new JSONObject(response);
             String accessToken = jsonResponse.getString("access_token");
+            long expiresInMs = jsonResponse.optLong("expires_in", 3600) * 1000;
+            cachedAccessToken = accessToken;
+            cachedTokenExpiresAt = SystemClock.elapsedRealtime() + expiresInMs - TOKEN_EXPIRY_MARGIN_MS;
             callback.onSuccess(accessToken);
         } catch (JSONException e) {
             callback.onError(e.getMessage());
         }
     }
 
+    /**
+     * Removes and returns the callbacks waiting for the token request that just finished.
+     *
+     * @return The waiting callbacks.
+     */
+    private static List<AuthCallback> drainPendingCallbacks() {
+        List<AuthCallback> callbacks = new ArrayList<>(pendingCallbacks);
+        pendingCallbacks.clear();
+        return callbacks;
+    }
+
     /**
      * Handles errors that occur during the Spotify API authentication process.
      *
@@ -0,0 +1,52 @@
+/**
+ * SpotifyRequestQueue.java
+ * Function: Holds the single Volley RequestQueue shared by every Spotify request in the app,
+ * so authentication, searches and fan-out requests reuse the same worker threads and connections.
+ *
+ * @author Lorenz Aparentado
+ * @since 2023-12
+ */
+package com.example.spotifyartistexplorer;
+
+import android.content.Context;
+
+import com.android.volley.RequestQueue;
+import com.android.volley.toolbox.Volley;
+
+public class SpotifyRequestQueue {
+
+    private static SpotifyRequestQueue instance;
+
+    private final RequestQueue requestQueue;
+
+    /**
+     * Constructor for SpotifyRequestQueue.
+     *
+     * @param context The application context.
+     */
+    private SpotifyRequestQueue(Context context) {
+        requestQueue = Volley.newRequestQueue(context);
+    }
+
+    /**
+     * Gets the shared instance, creating it on first use.
+     *
+     * @param context Any context; only its application context is kept.
+     * @return The shared SpotifyRequestQueue.
+     */
+    public static synchronized SpotifyRequestQueue getInstance(Context context) {
+        if (instance == null) {
+            instance = new SpotifyRequestQueue(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Gets the shared RequestQueue.
+     *
+     * @return The RequestQueue.
+     */
+    public RequestQueue getRequestQueue() {
+        return requestQueue;
+    }
+}
@@ -0,0 +1,191 @@
+/**
+ * TieredImageCache.java
+ * Function: Picasso memory cache that keeps decoded list thumbnails apart from full-size images,
+ * so memory pressure can drop the large images first while the visible list stays intact.
+ *
+ * @author Lorenz Aparentado
+ * @since 2023-12
+ */
+package com.example.spotifyartistexplorer;
+
+import android.graphics.Bitmap;
+import android.util.LruCache;
+
+import com.squareup.picasso.Cache;
+
+import java.util.Map;
+
+public class TieredImageCache implements Cache {
+
+    /**
+     * Largest bitmap dimension, in pixels, still treated as a list thumbnail.
+     */
+    private static final int THUMBNAIL_MAX_DIMENSION = 400;
+
+    /**
+     * Separator Picasso places between the URI and the options in a cache key.
+     */
+    private static final char KEY_SEPARATOR = '\n';
+
+    private final BitmapLruCache thumbnails;
+    private final BitmapLruCache fullImages;
+
+    /**
+     * Constructs a TieredImageCache; a third of the budget goes to thumbnails.
+     *
+     * @param maxBytes The total memory budget in bytes.
+     */
+    public TieredImageCache(int maxBytes) {
+        int thumbnailBytes = maxBytes / 3;
+        thumbnails = new BitmapLruCache(thumbnailBytes);
+        fullImages = new BitmapLruCache(maxBytes - thumbnailBytes);
+    }
+
+    /**
+     * Builds the key Picasso uses for an image loaded by URL without resizing or transformations.
+     *
+     * @param url The image URL.
+     * @return The memory cache key.
+     */
+    public static String keyOf(String url) {
+        return url + KEY_SEPARATOR;
+    }
+
+    /**
+     * Looks up a list thumbnail without going through a Picasso request, so a row bound to an
+     * already decoded thumbnail allocates nothing.
+     *
+     * @param key The memory cache key, as built by keyOf.
+     * @return The thumbnail, or null if it is not in the thumbnail tier.
+     */
+    public Bitmap getThumbnail(String key) {
+        return thumbnails.get(key);
+    }
+
+    /**
+     * Gets the tier holding full-size images.
+     *
+     * @return The full-size image tier.
+     */
+    public CacheRegistry.TrimmableCache getFullImageTier() {
+        return fullImages;
+    }
+
+    /**
+     * Gets the tier holding list thumbnails.
+     *
+     * @return The thumbnail tier.
+     */
+    public CacheRegistry.TrimmableCache getThumbnailTier() {
+        return thumbnails;
+    }
+
+    /**
+     * Gets a cached bitmap from either tier.
+     *
+     * @param key The Picasso cache key.
+     * @return The bitmap, or null if it is not cached.
+     */
+    @Override
+    public Bitmap get(String key) {
+        Bitmap bitmap = thumbnails.get(key);
+        return bitmap != null ? bitmap : fullImages.get(key);
+    }
+
+    /**
+     * Stores a bitmap in the tier matching its size.
+     *
+     * @param key    The Picasso cache key.
+     * @param bitmap The decoded bitmap.
+     */
+    @Override
+    public void set(String key, Bitmap bitmap) {
+        if (Math.max(bitmap.getWidth(), bitmap.getHeight()) <= THUMBNAIL_MAX_DIMENSION) {
+            fullImages.remove(key);
+            thumbnails.put(key, bitmap);
+        } else {
+            thumbnails.remove(key);
+            fullImages.put(key, bitmap);
+        }
+    }
+
+    /**
+     * Gets the number of bytes held by both tiers.
+     *
+     * @return The size in bytes.
+     */
+    @Override
+    public int size() {
+        return thumbnails.size() + fullImages.size();
+    }
+
+    /**
+     * Gets the combined budget of both tiers.
+     *
+     * @return The maximum size in bytes.
+     */
+    @Override
+    public int maxSize() {
+        return thumbnails.maxSize() + fullImages.maxSize();
+    }
+
+    /**
+     * Removes every bitmap from both tiers.
+     */
+    @Override
+    public void clear() {
+        thumbnails.evictAll();
+        fullImages.evictAll();
+    }
+
+    /**
+     * Removes every bitmap cached for the given URI.
+     *
+     * @param keyPrefix The URI part of the keys to remove.
+     */
+    @Override
+    public void clearKeyUri(String keyPrefix) {
+        thumbnails.removeKeyUri(keyPrefix);
+        fullImages.removeKeyUri(keyPrefix);
+    }
+
+    /**
+     * LruCache of bitmaps sized by their allocation in bytes.
+     */
+    private static class BitmapLruCache extends LruCache<String, Bitmap> implements CacheRegistry.TrimmableCache {
+
+        BitmapLruCache(int maxBytes) {
+            super(Math.max(1, maxBytes));
+        }
+
+        @Override
+        protected int sizeOf(String key, Bitmap bitmap) {
+            return bitmap.getAllocationByteCount();
+        }
+
+        @Override
+        public long getByteSize() {
+            return size();
+        }
+
+        @Override
+        public void trim() {
+            evictAll();
+        }
+
+        /**
+         * Removes every entry whose key is for the given URI, whatever its options.
+         *
+         * @param keyPrefix The URI part of the keys to remove.
+         */
+        void removeKeyUri(String keyPrefix) {
+            for (Map.Entry<String, Bitmap> entry : snapshot().entrySet()) {
+                String key = entry.getKey();
+                if (key.startsWith(keyPrefix) && key.length() > keyPrefix.length()
+                        && key.charAt(keyPrefix.length()) == KEY_SEPARATOR) {
+                    remove(key);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * Track.java
+ * This class represents a track with information such as Spotify ID, name, preview URL, duration, and popularity.
+ *
+ * @author Lorenz Aparentado
+ * @since 2023-12
+ */
+package com.example.spotifyartistexplorer;
+
+public class Track {
+    private final String id;
+    private final String name;
+    private final String previewUrl;
+    private final int durationMs;
+    private final int popularity;
+
+    /**
+     * Constructs a Track object with the specified Spotify ID, name, preview URL, duration, and popularity.
+     *
+     * @param id         The Spotify ID of the track.
+     * @param name       The name of the track.
+     * @param previewUrl The URL of the 30-second preview clip, or null if Spotify offers none.
+     * @param durationMs The length of the full track in milliseconds.
+     * @param popularity The popularity of the track, from 0 to 100.
+     */
+    public Track(String id, String name, String previewUrl, int durationMs, int popularity) {
+        this.id = id;
+        this.name = name;
+        this.previewUrl = previewUrl;
+        this.durationMs = durationMs;
+        this.popularity = popularity;
+    }
+
+    /**
+     * Gets the Spotify ID of the track.
+     *
+     * @return The Spotify ID of the track.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Gets the name of the track.
+     *
+     * @return The name of the track.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the URL of the 30-second preview clip.
+     *
+     * @return The preview URL, or null if the track has no preview.
+     */
+    public String getPreviewUrl() {
+        return previewUrl;
+    }
+
+    /**
+     * Gets the length of the full track.
+     *
+     * @return The duration in milliseconds.
+     */
+    public int getDurationMs() {
+        return durationMs;
+    }
+
+    /**
+     * Gets the popularity of the track.
+     *
+     * @return The popularity, from 0 to 100.
+     */
+    public int getPopularity() {
+        return popularity;
+    }
+}
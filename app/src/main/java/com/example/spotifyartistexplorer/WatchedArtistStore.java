@@ -0,0 +1,97 @@
+/**
+ * WatchedArtistStore.java
+ * Function: Persists the watched artists and their last known follower counts in
+ * SharedPreferences, keyed by Spotify artist ID.
+ *
+ * @author Lorenz Aparentado
+ * @since 2023-12
+ */
+package com.example.spotifyartistexplorer;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class WatchedArtistStore {
+
+    private static final String PREFERENCES_NAME = "watched_artists";
+
+    private final SharedPreferences preferences;
+
+    /**
+     * Constructor for WatchedArtistStore.
+     *
+     * @param context The application context.
+     */
+    public WatchedArtistStore(Context context) {
+        preferences = context.getApplicationContext().getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Checks whether an artist is watched.
+     *
+     * @param artistId The Spotify ID of the artist.
+     * @return True if the artist is watched.
+     */
+    public boolean isWatched(String artistId) {
+        return preferences.contains(artistId);
+    }
+
+    /**
+     * Starts watching an artist.
+     *
+     * @param artistId  The Spotify ID of the artist.
+     * @param followers The follower count currently known for the artist.
+     */
+    public void watch(String artistId, int followers) {
+        preferences.edit().putInt(artistId, followers).apply();
+    }
+
+    /**
+     * Stops watching an artist.
+     *
+     * @param artistId The Spotify ID of the artist.
+     */
+    public void unwatch(String artistId) {
+        preferences.edit().remove(artistId).apply();
+    }
+
+    /**
+     * Gets the IDs of every watched artist.
+     *
+     * @return The watched artist IDs.
+     */
+    public List<String> getWatchedIds() {
+        return new ArrayList<>(preferences.getAll().keySet());
+    }
+
+    /**
+     * Writes back refreshed follower counts, touching only the entries whose value changed
+     * and only artists that are still watched.
+     *
+     * @param followerCounts The refreshed follower counts by artist ID.
+     * @return The number of entries that changed.
+     */
+    public int updateFollowers(Map<String, Integer> followerCounts) {
+        SharedPreferences.Editor editor = null;
+        int changed = 0;
+        for (Map.Entry<String, Integer> entry : followerCounts.entrySet()) {
+            String artistId = entry.getKey();
+            int followers = entry.getValue();
+            if (preferences.contains(artistId) && preferences.getInt(artistId, followers) != followers) {
+                if (editor == null) {
+                    editor = preferences.edit();
+                }
+                editor.putInt(artistId, followers);
+                changed++;
+            }
+        }
+        if (editor != null) {
+            editor.apply();
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,165 @@
+/**
+ * WatchedArtistsRefreshWorker.java
+ * Function: Background job that refreshes the follower counts of every watched artist in batches
+ * of up to 50 IDs, only while the device is charging and on an unmetered network, and records each
+ * refreshed count in the follower history.
+ *
+ * @author Lorenz Aparentado
+ * @since 2023-12
+ */
+package com.example.spotifyartistexplorer;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class WatchedArtistsRefreshWorker extends Worker {
+
+    private static final String TAG = "WatchedArtistsRefresh";
+    private static final String UNIQUE_WORK_NAME = "watched_artists_refresh";
+    private static final long REFRESH_INTERVAL_HOURS = 6;
+
+    /**
+     * Maximum number of batch requests in flight at once.
+     */
+    private static final int MAX_IN_FLIGHT = 4;
+
+    /**
+     * Time a whole refresh cycle may take; batches not started by then wait for the next cycle.
+     */
+    private static final long TIME_BUDGET_MS = 60 * 1000;
+    private static final long AUTH_TIMEOUT_MS = 15 * 1000;
+
+    /**
+     * Constructor for WatchedArtistsRefreshWorker, called by WorkManager.
+     *
+     * @param context      The application context.
+     * @param workerParams Parameters supplied by WorkManager.
+     */
+    public WatchedArtistsRefreshWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    /**
+     * Schedules the periodic refresh, keeping an existing schedule if there is one.
+     *
+     * @param context The application context.
+     */
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.UNMETERED)
+                .setRequiresCharging(true)
+                .build();
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(WatchedArtistsRefreshWorker.class,
+                REFRESH_INTERVAL_HOURS, TimeUnit.HOURS)
+                .setConstraints(constraints)
+                .build();
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(UNIQUE_WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    /**
+     * Runs one refresh cycle on WorkManager's background thread. Issues one request per
+     * 50 watched artists, at most MAX_IN_FLIGHT at a time, and writes back only the
+     * counts that changed.
+     *
+     * @return The result of the cycle.
+     */
+    @NonNull
+    @Override
+    public Result doWork() {
+        WatchedArtistStore store = new WatchedArtistStore(getApplicationContext());
+        List<String> watchedIds = store.getWatchedIds();
+        if (watchedIds.isEmpty()) {
+            return Result.success();
+        }
+
+        long startedAt = SystemClock.elapsedRealtime();
+        String accessToken = fetchAccessToken();
+        if (accessToken == null) {
+            return Result.retry();
+        }
+
+        SpotifyApiHelper spotifyApiHelper = new SpotifyApiHelper(getApplicationContext(), accessToken);
+        long remainingMs = TIME_BUDGET_MS - (SystemClock.elapsedRealtime() - startedAt);
+        FollowerCountRefresh refresh = new FollowerCountRefresh(spotifyApiHelper::getFollowerCounts,
+                SpotifyApiHelper.getMaxIdsPerRequest(), MAX_IN_FLIGHT, remainingMs);
+        refresh.run(watchedIds, this::isStopped);
+
+        Map<String, Integer> refreshedCounts = refresh.getFollowerCounts();
+        int changed = store.updateFollowers(refreshedCounts);
+        recordHistory(refreshedCounts);
+        long elapsedMs = SystemClock.elapsedRealtime() - startedAt;
+        DebugMetrics.record("watch.artists", watchedIds.size());
+        DebugMetrics.record("watch.requests", refresh.getRequests());
+        DebugMetrics.record("watch.failed_requests", refresh.getFailedBatches());
+        DebugMetrics.record("watch.changed", changed);
+        DebugMetrics.record("watch.elapsed_ms", elapsedMs);
+
+        return refresh.isComplete() ? Result.success() : Result.retry();
+    }
+
+    /**
+     * Appends the refreshed counts to the follower history, one sample per artist.
+     *
+     * @param followerCounts The refreshed follower counts by artist ID.
+     */
+    private void recordHistory(Map<String, Integer> followerCounts) {
+        if (followerCounts.isEmpty()) {
+            return;
+        }
+        try {
+            FollowerHistoryStore.getInstance(getApplicationContext())
+                    .append(followerCounts, System.currentTimeMillis() / 1000);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to record follower history", e);
+        }
+    }
+
+    /**
+     * Gets an access token through the shared SpotifyAuthenticator, which must be called on
+     * the main thread, and waits for it.
+     *
+     * @return The access token, or null if authentication failed or timed out.
+     */
+    private String fetchAccessToken() {
+        CountDownLatch authenticated = new CountDownLatch(1);
+        String[] accessToken = new String[1];
+        new Handler(Looper.getMainLooper()).post(() ->
+                new SpotifyAuthenticator(getApplicationContext()).authenticate(new SpotifyAuthenticator.AuthCallback() {
+                    @Override
+                    public void onSuccess(String token) {
+                        accessToken[0] = token;
+                        authenticated.countDown();
+                    }
+
+                    @Override
+                    public void onError(String errorMessage) {
+                        Log.w(TAG, "Authentication failed: " + errorMessage);
+                        authenticated.countDown();
+                    }
+                }));
+        try {
+            authenticated.await(AUTH_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return accessToken[0];
+    }
+}
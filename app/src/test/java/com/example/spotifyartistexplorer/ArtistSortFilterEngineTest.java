@@ -0,0 +1,219 @@
+/**
+ * ArtistSortFilterEngineTest.java
+ * Function: Checks that the incremental change reports keep an adapter's copy of the list equal
+ * to a brute-force sort and filter, and measures the main-thread cost of re-sorting 100k rows
+ * against the frame budget.
+ *
+ * @author Lorenz Aparentado
+ * @since 2023-12
+ */
+package com.example.spotifyartistexplorer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class ArtistSortFilterEngineTest {
+
+    /**
+     * Frame budget at 60Hz that the main-thread steps of a re-sort are reported against.
+     */
+    private static final long FRAME_BUDGET_NANOS = 16_000_000;
+
+    private static final String[] GENRES = {"pop", "rock", "jazz", "folk"};
+
+    /**
+     * Tasks posted to the simulated main thread, run by the test itself.
+     */
+    private final BlockingQueue<Runnable> mainTasks = new LinkedBlockingQueue<>();
+    private ExecutorService sortExecutor;
+    private ArtistSortFilterEngine engine;
+
+    /**
+     * Copy of the visible list maintained only from the change reports, as the adapter sees it.
+     */
+    private final List<Artist> adapterItems = new ArrayList<>();
+
+    /**
+     * Creates an engine whose re-sorts are published through mainTasks.
+     */
+    @Before
+    public void setUp() {
+        sortExecutor = Executors.newSingleThreadExecutor();
+        engine = new ArtistSortFilterEngine(mainTasks::add, sortExecutor);
+        engine.setChangeListener(new ArtistSortFilterEngine.ChangeListener() {
+            @Override
+            public void onItemRangeInserted(int positionStart, int itemCount) {
+                for (int i = 0; i < itemCount; i++) {
+                    adapterItems.add(positionStart + i, engine.getVisibleArtists().get(positionStart + i));
+                }
+            }
+
+            @Override
+            public void onItemRangeRemoved(int positionStart, int itemCount) {
+                adapterItems.subList(positionStart, positionStart + itemCount).clear();
+            }
+
+            @Override
+            public void onItemRangeChanged(int positionStart, int itemCount) {
+                for (int i = 0; i < itemCount; i++) {
+                    adapterItems.set(positionStart + i, engine.getVisibleArtists().get(positionStart + i));
+                }
+            }
+        });
+    }
+
+    /**
+     * Stops the sort thread.
+     */
+    @After
+    public void tearDown() {
+        engine.shutdown();
+    }
+
+    /**
+     * Pages arriving before, during and after re-sorts and filter changes end up in the same
+     * order a full sort gives, and the change reports keep the adapter's copy in step.
+     */
+    @Test
+    public void changeReports_matchBruteForce() throws InterruptedException {
+        Random random = new Random(5);
+        List<Artist> all = new ArrayList<>();
+        for (int page = 0; page < 40; page++) {
+            List<Artist> artists = randomPage(random, page, 25);
+            all.addAll(artists);
+            engine.addPage(artists);
+            switch (page) {
+                case 8:
+                    engine.setMinFollowers(200_000);
+                    break;
+                case 15:
+                    engine.setSortKey(ArtistSortFilterEngine.SortKey.FOLLOWERS_DESCENDING);
+                    break;
+                case 16:
+                    // Arrives while the re-sort is pending
+                    engine.setGenreFilter(new int[]{0, 1}, false);
+                    break;
+                case 17:
+                    runMainTask();
+                    break;
+                case 25:
+                    engine.setSortKey(ArtistSortFilterEngine.SortKey.FOLLOWERS_ASCENDING);
+                    runMainTask();
+                    break;
+                case 32:
+                    engine.setMinFollowers(500_000);
+                    break;
+                default:
+                    break;
+            }
+            assertEquals(new ArrayList<>(engine.getVisibleArtists()), adapterItems);
+        }
+
+        List<Artist> expected = new ArrayList<>();
+        for (Artist artist : all) {
+            String genre = artist.getGenres()[0];
+            if (artist.getNumberOfFollowers() >= 500_000 && (genre.equals(engine.getGenreName(0)) || genre.equals(engine.getGenreName(1)))) {
+                expected.add(artist);
+            }
+        }
+        // List.sort is stable, so equal follower counts keep arrival order like the engine
+        expected.sort(Comparator.comparingInt(Artist::getNumberOfFollowers));
+        assertEquals(expected, adapterItems);
+    }
+
+    /**
+     * Switching the ordering of 100k rows publishes every row in the new order. Reports the
+     * median time of the main-thread steps, the call itself, which shows the top-followers
+     * preview, and the publishing of the background sort, against the frame budget. The times
+     * are only reported: they depend on the machine running the tests.
+     */
+    @Test
+    public void benchmark_resort100kRows() throws InterruptedException {
+        Random random = new Random(9);
+        for (int page = 0; page < 100; page++) {
+            engine.addPage(randomPage(random, page, 1000));
+        }
+        ArtistSortFilterEngine.SortKey[] keys = {
+                ArtistSortFilterEngine.SortKey.FOLLOWERS_DESCENDING,
+                ArtistSortFilterEngine.SortKey.FOLLOWERS_ASCENDING,
+                ArtistSortFilterEngine.SortKey.RELEVANCE
+        };
+
+        int rounds = 15;
+        long[] callNanos = new long[rounds];
+        long[] backgroundNanos = new long[rounds];
+        long[] publishNanos = new long[rounds];
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            engine.setSortKey(keys[round % keys.length]);
+            callNanos[round] = System.nanoTime() - start;
+
+            Runnable publish = mainTasks.poll(10, TimeUnit.SECONDS);
+            backgroundNanos[round] = System.nanoTime() - start;
+            assertNotNull(publish);
+            start = System.nanoTime();
+            publish.run();
+            publishNanos[round] = System.nanoTime() - start;
+        }
+        assertEquals(100_000, adapterItems.size());
+        assertEquals(new ArrayList<>(engine.getVisibleArtists()), adapterItems);
+
+        System.out.println(String.format(Locale.US,
+                "ArtistSortFilterEngine: 100k-row re-sort, median %.2f ms call, %.2f ms background, %.2f ms publish (frame budget %.0f ms)",
+                median(callNanos) / 1e6, median(backgroundNanos) / 1e6, median(publishNanos) / 1e6, FRAME_BUDGET_NANOS / 1e6));
+    }
+
+    /**
+     * Waits for the next task posted to the simulated main thread and runs it.
+     */
+    private void runMainTask() throws InterruptedException {
+        Runnable task = mainTasks.poll(10, TimeUnit.SECONDS);
+        assertNotNull(task);
+        task.run();
+    }
+
+    /**
+     * Builds a page of artists with random follower counts and one random genre each.
+     *
+     * @param random The random source.
+     * @param page   The page number, used in the IDs.
+     * @param size   The number of artists.
+     * @return The page.
+     */
+    private static List<Artist> randomPage(Random random, int page, int size) {
+        List<Artist> artists = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            artists.add(new Artist("artist" + page + "_" + i, "Artist " + i, null, null,
+                    random.nextInt(1_000_000), new String[]{GENRES[random.nextInt(GENRES.length)]}));
+        }
+        return artists;
+    }
+
+    /**
+     * Gets the median of some durations.
+     *
+     * @param nanos The durations.
+     * @return The median.
+     */
+    private static long median(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
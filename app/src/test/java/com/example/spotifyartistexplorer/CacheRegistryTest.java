@@ -0,0 +1,158 @@
+/**
+ * CacheRegistryTest.java
+ * Function: Checks which cache tiers each trim level reaches and that trimming releases the
+ * registered caches' bytes, using fake caches on a private registry.
+ *
+ * @author Lorenz Aparentado
+ * @since 2023-12
+ */
+package com.example.spotifyartistexplorer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.ComponentCallbacks2;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+public class CacheRegistryTest {
+
+    private static final long TIER_BYTES = 1024 * 1024;
+
+    private CacheRegistry registry;
+    private Map<CacheRegistry.Tier, FakeCache> fakeCaches;
+
+    /**
+     * Cache holding a fixed number of bytes until it is trimmed.
+     */
+    private static class FakeCache implements CacheRegistry.TrimmableCache {
+        private long byteSize = TIER_BYTES;
+        private int trimCount;
+
+        /**
+         * Gets the bytes held until the first trim.
+         *
+         * @return The byte footprint.
+         */
+        @Override
+        public long getByteSize() {
+            return byteSize;
+        }
+
+        /**
+         * Releases the bytes.
+         */
+        @Override
+        public void trim() {
+            byteSize = 0;
+            trimCount++;
+        }
+    }
+
+    /**
+     * Registers one full fake cache in every tier of a fresh registry.
+     */
+    @Before
+    public void setUp() {
+        registry = new CacheRegistry();
+        fakeCaches = new EnumMap<>(CacheRegistry.Tier.class);
+        for (CacheRegistry.Tier tier : CacheRegistry.Tier.values()) {
+            FakeCache cache = new FakeCache();
+            fakeCaches.put(tier, cache);
+            registry.register(tier, cache);
+        }
+    }
+
+    /**
+     * Background levels trim more tiers the closer the process is to being killed.
+     */
+    @Test
+    public void getTiersToTrim_backgroundLevels() {
+        assertEquals(1, CacheRegistry.getTiersToTrim(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN));
+        assertEquals(2, CacheRegistry.getTiersToTrim(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND));
+        assertEquals(3, CacheRegistry.getTiersToTrim(ComponentCallbacks2.TRIM_MEMORY_MODERATE));
+        assertEquals(4, CacheRegistry.getTiersToTrim(ComponentCallbacks2.TRIM_MEMORY_COMPLETE));
+    }
+
+    /**
+     * Foreground levels trim the caches the user is not looking at, never the persistent stores.
+     */
+    @Test
+    public void getTiersToTrim_runningLevels() {
+        assertEquals(0, CacheRegistry.getTiersToTrim(0));
+        assertEquals(1, CacheRegistry.getTiersToTrim(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE));
+        assertEquals(2, CacheRegistry.getTiersToTrim(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW));
+        assertEquals(3, CacheRegistry.getTiersToTrim(ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL));
+    }
+
+    /**
+     * Each escalating level releases the bytes of exactly the tiers it reaches.
+     */
+    @Test
+    public void onTrimMemory_releasesReachedTiers() {
+        int[] levels = {
+                ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE,
+                ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW,
+                ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL,
+                ComponentCallbacks2.TRIM_MEMORY_COMPLETE
+        };
+        long previousTotal = registry.getTotalByteSize();
+        assertEquals(4 * TIER_BYTES, previousTotal);
+
+        for (int level : levels) {
+            registry.onTrimMemory(level);
+            int reached = CacheRegistry.getTiersToTrim(level);
+            long total = registry.getTotalByteSize();
+            assertTrue("Level " + level + " did not release memory", total < previousTotal);
+            assertEquals((4 - reached) * TIER_BYTES, total);
+            for (CacheRegistry.Tier tier : CacheRegistry.Tier.values()) {
+                long expected = tier.ordinal() < reached ? 0 : TIER_BYTES;
+                assertEquals(tier + " at level " + level, expected, registry.getByteSize(tier));
+            }
+            previousTotal = total;
+        }
+    }
+
+    /**
+     * Hiding the UI only drops decoded full-size images.
+     */
+    @Test
+    public void onTrimMemory_uiHiddenTrimsImagesOnly() {
+        registry.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+
+        assertEquals(1, fakeCaches.get(CacheRegistry.Tier.IMAGE_MEMORY).trimCount);
+        assertEquals(0, fakeCaches.get(CacheRegistry.Tier.DECODED_THUMBNAILS).trimCount);
+        assertEquals(0, fakeCaches.get(CacheRegistry.Tier.RESULT_PAGES).trimCount);
+        assertEquals(0, fakeCaches.get(CacheRegistry.Tier.PERSISTENT_STORE).trimCount);
+    }
+
+    /**
+     * A level that reaches no tier leaves every cache alone.
+     */
+    @Test
+    public void onTrimMemory_unknownLevelTrimsNothing() {
+        registry.onTrimMemory(0);
+
+        assertEquals(4 * TIER_BYTES, registry.getTotalByteSize());
+    }
+
+    /**
+     * trimAll empties every tier, and unregistered caches are neither counted nor trimmed.
+     */
+    @Test
+    public void trimAll_skipsUnregisteredCaches() {
+        FakeCache resultPages = fakeCaches.get(CacheRegistry.Tier.RESULT_PAGES);
+        registry.unregister(CacheRegistry.Tier.RESULT_PAGES, resultPages);
+        assertEquals(3 * TIER_BYTES, registry.getTotalByteSize());
+
+        registry.trimAll();
+
+        assertEquals(0, registry.getTotalByteSize());
+        assertEquals(0, resultPages.trimCount);
+        assertEquals(TIER_BYTES, resultPages.getByteSize());
+    }
+}
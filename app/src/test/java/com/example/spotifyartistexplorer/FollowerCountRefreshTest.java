@@ -0,0 +1,177 @@
+/**
+ * FollowerCountRefreshTest.java
+ * Function: Checks that a refresh of 5,000 watched artists issues one request per 50 IDs, never
+ * has more than 4 in flight and stops starting batches once its time budget is spent, using a
+ * fake follower-count source that answers on its own threads.
+ *
+ * @author Lorenz Aparentado
+ * @since 2023-12
+ */
+package com.example.spotifyartistexplorer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class FollowerCountRefreshTest {
+
+    private static final int ARTIST_COUNT = 5000;
+    private static final int BATCH_SIZE = 50;
+    private static final int MAX_IN_FLIGHT = 4;
+    private static final long TIME_BUDGET_MS = 60 * 1000;
+
+    private final ExecutorService answerExecutor = Executors.newCachedThreadPool();
+
+    /**
+     * Follower-count source that answers each batch after a delay on a background thread and
+     * tracks how many batches it is answering at once.
+     */
+    private class FakeSource implements FollowerCountRefresh.FollowerCountSource {
+        private final long answerDelayMs;
+        private final boolean knowsArtists;
+        private final AtomicInteger requests = new AtomicInteger();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+
+        /**
+         * Constructor for FakeSource.
+         *
+         * @param answerDelayMs The time each batch takes to answer.
+         * @param knowsArtists  False to answer every batch with no counts, as for removed artists.
+         */
+        FakeSource(long answerDelayMs, boolean knowsArtists) {
+            this.answerDelayMs = answerDelayMs;
+            this.knowsArtists = knowsArtists;
+        }
+
+        /**
+         * Answers the batch with one count per ID, derived from the ID.
+         *
+         * @param artistIds The artist IDs.
+         * @param callback  The callback to answer.
+         */
+        @Override
+        public void getFollowerCounts(List<String> artistIds, SpotifyApiHelper.FollowerCountsCallback callback) {
+            requests.incrementAndGet();
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            List<String> ids = new ArrayList<>(artistIds);
+            answerExecutor.execute(() -> {
+                try {
+                    Thread.sleep(answerDelayMs);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                Map<String, Integer> counts = new HashMap<>();
+                if (knowsArtists) {
+                    for (String id : ids) {
+                        counts.put(id, id.hashCode() & 0xffff);
+                    }
+                }
+                inFlight.decrementAndGet();
+                callback.onSuccess(counts);
+            });
+        }
+    }
+
+    /**
+     * Stops the answering threads, including those of batches left in flight.
+     */
+    @After
+    public void tearDown() {
+        answerExecutor.shutdownNow();
+    }
+
+    /**
+     * One request per 50 IDs covers every artist, never more than 4 at once.
+     */
+    @Test
+    public void refreshesEveryArtistWithBoundedRequests() {
+        FakeSource source = new FakeSource(2, true);
+        FollowerCountRefresh refresh = new FollowerCountRefresh(source, BATCH_SIZE, MAX_IN_FLIGHT, TIME_BUDGET_MS);
+
+        refresh.run(createIds(ARTIST_COUNT), () -> false);
+
+        assertEquals(ARTIST_COUNT / BATCH_SIZE, source.requests.get());
+        assertEquals(ARTIST_COUNT / BATCH_SIZE, refresh.getRequests());
+        assertTrue("max in flight " + source.maxInFlight.get(), source.maxInFlight.get() <= MAX_IN_FLIGHT);
+        assertEquals(ARTIST_COUNT, refresh.getFollowerCounts().size());
+        assertTrue(refresh.isComplete());
+    }
+
+    /**
+     * Slow answers leave batches unstarted when the budget runs out, and the refresh returns then.
+     */
+    @Test
+    public void stopsStartingBatchesAtTheBudget() {
+        long budgetMs = 300;
+        FakeSource source = new FakeSource(100, true);
+        FollowerCountRefresh refresh = new FollowerCountRefresh(source, BATCH_SIZE, MAX_IN_FLIGHT, budgetMs);
+
+        long startedAt = System.nanoTime();
+        refresh.run(createIds(ARTIST_COUNT), () -> false);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+        // Each slot answers about every 100 ms, so 4 slots start roughly 12-16 batches in 300 ms
+        assertTrue("requests " + refresh.getRequests(), refresh.getRequests() < ARTIST_COUNT / BATCH_SIZE);
+        assertTrue("requests " + refresh.getRequests(), refresh.getRequests() >= MAX_IN_FLIGHT);
+        assertTrue("max in flight " + source.maxInFlight.get(), source.maxInFlight.get() <= MAX_IN_FLIGHT);
+        assertTrue("returned before the budget after " + elapsedMs + " ms", elapsedMs >= budgetMs);
+        assertFalse(refresh.isComplete());
+    }
+
+    /**
+     * A stopped refresh starts no more batches and does not wait for the ones it never started.
+     */
+    @Test
+    public void stopsStartingBatchesWhenStopped() {
+        FakeSource source = new FakeSource(2, true);
+        FollowerCountRefresh refresh = new FollowerCountRefresh(source, BATCH_SIZE, MAX_IN_FLIGHT, TIME_BUDGET_MS);
+
+        refresh.run(createIds(ARTIST_COUNT), () -> source.requests.get() >= 10);
+
+        assertEquals(10, refresh.getRequests());
+        assertFalse(refresh.isComplete());
+    }
+
+    /**
+     * Answered batches complete the refresh even when none of the IDs has a count.
+     */
+    @Test
+    public void completesWhenNoArtistIsKnown() {
+        FakeSource source = new FakeSource(0, false);
+        FollowerCountRefresh refresh = new FollowerCountRefresh(source, BATCH_SIZE, MAX_IN_FLIGHT, TIME_BUDGET_MS);
+
+        refresh.run(createIds(120), () -> false);
+
+        assertEquals(3, refresh.getRequests());
+        assertEquals(Collections.emptyMap(), refresh.getFollowerCounts());
+        assertTrue(refresh.isComplete());
+    }
+
+    /**
+     * Creates distinct artist IDs.
+     *
+     * @param count The number of IDs.
+     * @return The IDs.
+     */
+    private static List<String> createIds(int count) {
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(String.format("artist%05d", i));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,196 @@
+/**
+ * FollowerHistoryStoreTest.java
+ * Function: Checks that follower history samples survive a round trip through the block files
+ * and measures the on-disk bytes per sample and the range query latency over millions of samples.
+ *
+ * @author Lorenz Aparentado
+ * @since 2023-12
+ */
+package com.example.spotifyartistexplorer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+public class FollowerHistoryStoreTest {
+
+    private static final long START_TIME = 1_700_000_000L;
+    private static final long SIX_HOURS = 6 * 60 * 60;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * Samples read back equal the samples written, also after reopening the store and after a trim.
+     */
+    @Test
+    public void query_roundTripsSamples() throws IOException {
+        File directory = temporaryFolder.newFolder();
+        FollowerHistoryStore store = new FollowerHistoryStore(directory);
+        int artistCount = 20;
+        int sampleCount = 500;
+        long[][] times = new long[artistCount][sampleCount];
+        int[][] values = new int[artistCount][sampleCount];
+        writeRandomHistory(store, times, values, new Random(7));
+
+        assertHistory(store, times, values);
+        store.trim();
+        assertEquals(0, store.getByteSize());
+        assertHistory(store, times, values);
+        assertHistory(new FollowerHistoryStore(directory), times, values);
+    }
+
+    /**
+     * Range queries include both ends and skip samples outside the range.
+     */
+    @Test
+    public void query_returnsOnlyTheRange() throws IOException {
+        FollowerHistoryStore store = new FollowerHistoryStore(temporaryFolder.newFolder());
+        for (int i = 0; i < 1000; i++) {
+            store.append(singleSample("artist", 1000 + i), START_TIME + i * SIX_HOURS);
+        }
+
+        FollowerHistoryStore.Samples samples = store.query("artist", START_TIME + 100 * SIX_HOURS, START_TIME + 199 * SIX_HOURS);
+
+        assertEquals(100, samples.getCount());
+        assertEquals(START_TIME + 100 * SIX_HOURS, samples.getTime(0));
+        assertEquals(1100, samples.getFollowers(0));
+        assertEquals(1199, samples.getFollowers(99));
+        assertEquals(0, store.query("unknown", 0, Long.MAX_VALUE).getCount());
+    }
+
+    /**
+     * A sample that is not newer than the artist's last sample is ignored.
+     */
+    @Test
+    public void append_ignoresSamplesNotNewer() throws IOException {
+        FollowerHistoryStore store = new FollowerHistoryStore(temporaryFolder.newFolder());
+
+        assertEquals(1, store.append(singleSample("artist", 10), START_TIME));
+        assertEquals(0, store.append(singleSample("artist", 20), START_TIME));
+        assertEquals(0, store.append(singleSample("artist", 30), START_TIME - 1));
+
+        FollowerHistoryStore.Samples samples = store.query("artist", 0, Long.MAX_VALUE);
+        assertEquals(1, samples.getCount());
+        assertEquals(10, samples.getFollowers(0));
+        assertTrue(store.getByteSize() > 0);
+    }
+
+    /**
+     * Writes two million samples (2,000 artists, every six hours for 250 days, with realistic
+     * follower drift) and reports the bytes per sample and the latency of 30-day range queries.
+     */
+    @Test
+    public void benchmark_bytesPerSampleAndQueryLatency() throws IOException {
+        File directory = temporaryFolder.newFolder();
+        FollowerHistoryStore store = new FollowerHistoryStore(directory);
+        int artistCount = 2000;
+        int sampleCount = 1000;
+        Random random = new Random(1);
+        int[] followers = new int[artistCount];
+        for (int artist = 0; artist < artistCount; artist++) {
+            followers[artist] = 1000 + random.nextInt(50_000_000);
+        }
+
+        long writeStart = System.nanoTime();
+        Map<String, Integer> batch = new HashMap<>();
+        for (int sample = 0; sample < sampleCount; sample++) {
+            batch.clear();
+            for (int artist = 0; artist < artistCount; artist++) {
+                followers[artist] = Math.max(0, followers[artist] + (int) (random.nextGaussian() * followers[artist] / 2000));
+                batch.put("artist" + artist, followers[artist]);
+            }
+            store.append(batch, START_TIME + sample * SIX_HOURS);
+        }
+        long writeNanos = System.nanoTime() - writeStart;
+
+        long totalSamples = (long) artistCount * sampleCount;
+        double bytesPerSample = (double) new File(directory, "follower_history.blocks").length() / totalSamples;
+
+        int queryCount = 2000;
+        int returned = 0;
+        store.trim();
+        store.query("artist0", 0, 0);
+        long queryStart = System.nanoTime();
+        for (int i = 0; i < queryCount; i++) {
+            long from = START_TIME + random.nextInt(sampleCount - 120) * SIX_HOURS;
+            returned += store.query("artist" + random.nextInt(artistCount), from, from + 30 * 4 * SIX_HOURS).getCount();
+        }
+        double queryMicros = (System.nanoTime() - queryStart) / 1000.0 / queryCount;
+
+        System.out.println(String.format(Locale.US,
+                "FollowerHistoryStore: %d samples, %.2f bytes/sample, %.2f us/append, %.1f us per 30-day query (%d samples)",
+                totalSamples, bytesPerSample, writeNanos / 1000.0 / totalSamples, queryMicros, returned / queryCount));
+        assertEquals(queryCount * 121, returned);
+        assertTrue("Bytes per sample: " + bytesPerSample, bytesPerSample < 8);
+    }
+
+    /**
+     * Writes random samples for every artist, every six hours, with occasional gaps and drops.
+     *
+     * @param store  The store to write to.
+     * @param times  Receives the sample times, per artist.
+     * @param values Receives the follower counts, per artist.
+     * @param random The random source.
+     * @throws IOException If the store fails.
+     */
+    private static void writeRandomHistory(FollowerHistoryStore store, long[][] times, int[][] values, Random random)
+            throws IOException {
+        long time = START_TIME;
+        Map<String, Integer> batch = new HashMap<>();
+        for (int sample = 0; sample < times[0].length; sample++) {
+            time += random.nextInt(10) == 0 ? SIX_HOURS * (2 + random.nextInt(50)) : SIX_HOURS;
+            batch.clear();
+            for (int artist = 0; artist < times.length; artist++) {
+                int previous = sample == 0 ? random.nextInt(Integer.MAX_VALUE / 2) : values[artist][sample - 1];
+                int value = random.nextInt(20) == 0 ? random.nextInt(Integer.MAX_VALUE) : previous + random.nextInt(20_001) - 10_000;
+                times[artist][sample] = time;
+                values[artist][sample] = Math.max(0, value);
+                batch.put("artist" + artist, values[artist][sample]);
+            }
+            assertEquals(times.length, store.append(batch, time));
+        }
+    }
+
+    /**
+     * Checks that every artist's full history reads back as written.
+     *
+     * @param store  The store to read.
+     * @param times  The expected sample times, per artist.
+     * @param values The expected follower counts, per artist.
+     * @throws IOException If the store fails.
+     */
+    private static void assertHistory(FollowerHistoryStore store, long[][] times, int[][] values) throws IOException {
+        for (int artist = 0; artist < times.length; artist++) {
+            FollowerHistoryStore.Samples samples = store.query("artist" + artist, 0, Long.MAX_VALUE);
+            assertEquals(times[artist].length, samples.getCount());
+            for (int i = 0; i < samples.getCount(); i++) {
+                assertEquals(times[artist][i], samples.getTime(i));
+                assertEquals(values[artist][i], samples.getFollowers(i));
+            }
+        }
+    }
+
+    /**
+     * Builds a single-artist sample batch.
+     *
+     * @param artistId  The artist ID.
+     * @param followers The follower count.
+     * @return The batch.
+     */
+    private static Map<String, Integer> singleSample(String artistId, int followers) {
+        Map<String, Integer> batch = new HashMap<>();
+        batch.put(artistId, followers);
+        return batch;
+    }
+}
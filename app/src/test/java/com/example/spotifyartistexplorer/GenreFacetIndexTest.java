@@ -0,0 +1,243 @@
+/**
+ * GenreFacetIndexTest.java
+ * Function: Checks the bitset genre filters and facet counts against a brute-force scan of
+ * randomly generated rows.
+ *
+ * @author Lorenz Aparentado
+ * @since 2023-12
+ */
+package com.example.spotifyartistexplorer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class GenreFacetIndexTest {
+
+    private static final String[] GENRES = {
+            "pop", "rock", "indie", "jazz", "hip hop", "k-pop", "metal", "folk", "soul", "techno"
+    };
+    private static final int ROW_COUNT = 5000;
+
+    private final Random random = new Random(42);
+    private GenreFacetIndex index;
+    private List<String[]> rowGenres;
+
+    /**
+     * Adds ROW_COUNT rows with zero to three random genres each.
+     */
+    @Before
+    public void setUp() {
+        index = new GenreFacetIndex();
+        rowGenres = new ArrayList<>();
+        for (int row = 0; row < ROW_COUNT; row++) {
+            String[] genres = randomGenres();
+            rowGenres.add(genres);
+            index.addRow(row, genres);
+        }
+    }
+
+    /**
+     * Genres are interned in order of first appearance.
+     */
+    @Test
+    public void addRow_internsEachGenreOnce() {
+        List<String> seen = new ArrayList<>();
+        for (String[] genres : rowGenres) {
+            for (String genre : genres) {
+                if (!seen.contains(genre)) {
+                    seen.add(genre);
+                }
+            }
+        }
+
+        assertEquals(seen.size(), index.getGenreCount());
+        for (int genreId = 0; genreId < seen.size(); genreId++) {
+            assertEquals(seen.get(genreId), index.getGenreName(genreId));
+        }
+    }
+
+    /**
+     * The masks and single-row checks agree with a scan for random selections, AND and OR.
+     */
+    @Test
+    public void buildMask_matchesBruteForce() {
+        for (int trial = 0; trial < 50; trial++) {
+            int[] genreIds = randomSelection();
+            for (boolean matchAll : new boolean[]{false, true}) {
+                long[] mask = index.buildMask(genreIds, matchAll);
+                assertEquals(GenreFacetIndex.wordCount(ROW_COUNT), mask.length);
+                for (int row = 0; row < ROW_COUNT; row++) {
+                    boolean expected = bruteForceMatches(row, genreIds, matchAll);
+                    assertEquals("row " + row, expected, isSet(mask, row));
+                    assertEquals("row " + row, expected, index.matches(row, genreIds, matchAll));
+                }
+            }
+        }
+    }
+
+    /**
+     * Facet counts within random base sets agree with a scan.
+     */
+    @Test
+    public void countFacets_matchesBruteForce() {
+        for (int trial = 0; trial < 20; trial++) {
+            long[] baseRows = new long[GenreFacetIndex.wordCount(ROW_COUNT)];
+            for (int row = 0; row < ROW_COUNT; row++) {
+                if (random.nextInt(3) > 0) {
+                    baseRows[row >>> 6] |= 1L << row;
+                }
+            }
+
+            assertArrayEquals(bruteForceCounts(baseRows, ROW_COUNT), index.countFacets(baseRows));
+        }
+    }
+
+    /**
+     * Truncating drops the rows from every genre, and rows added again are counted once.
+     */
+    @Test
+    public void truncate_dropsRowsFromEveryGenre() {
+        int keep = 1234;
+        index.truncate(keep);
+        long[] allRows = new long[GenreFacetIndex.wordCount(ROW_COUNT)];
+        Arrays.fill(allRows, -1L);
+
+        assertArrayEquals(bruteForceCounts(allRows, keep), index.countFacets(allRows));
+
+        for (int row = keep; row < ROW_COUNT; row++) {
+            index.addRow(row, rowGenres.get(row));
+        }
+        assertArrayEquals(bruteForceCounts(allRows, ROW_COUNT), index.countFacets(allRows));
+    }
+
+    /**
+     * clearFrom keeps the bits below the row, including within the shared word.
+     */
+    @Test
+    public void clearFrom_keepsLowerRows() {
+        long[] rowBits = {-1L, -1L, -1L};
+
+        GenreFacetIndex.clearFrom(rowBits, 70);
+
+        assertArrayEquals(new long[]{-1L, (1L << 6) - 1, 0}, rowBits);
+        GenreFacetIndex.clearFrom(rowBits, 64);
+        assertArrayEquals(new long[]{-1L, 0, 0}, rowBits);
+    }
+
+    /**
+     * Picks zero to three distinct random genres.
+     *
+     * @return The genres.
+     */
+    private String[] randomGenres() {
+        List<String> genres = new ArrayList<>();
+        int count = random.nextInt(4);
+        while (genres.size() < count) {
+            String genre = GENRES[random.nextInt(GENRES.length)];
+            if (!genres.contains(genre)) {
+                genres.add(genre);
+            }
+        }
+        return genres.toArray(new String[0]);
+    }
+
+    /**
+     * Picks one to three distinct genre IDs.
+     *
+     * @return The genre IDs.
+     */
+    private int[] randomSelection() {
+        int count = 1 + random.nextInt(3);
+        int[] genreIds = new int[count];
+        for (int i = 0; i < count; i++) {
+            int genreId;
+            do {
+                genreId = random.nextInt(index.getGenreCount());
+            } while (contains(genreIds, i, genreId));
+            genreIds[i] = genreId;
+        }
+        return genreIds;
+    }
+
+    /**
+     * Checks a row against a selection by comparing genre names.
+     *
+     * @param row      The row.
+     * @param genreIds The selected genre IDs.
+     * @param matchAll True to require every selected genre.
+     * @return True if the row matches.
+     */
+    private boolean bruteForceMatches(int row, int[] genreIds, boolean matchAll) {
+        List<String> genres = Arrays.asList(rowGenres.get(row));
+        for (int genreId : genreIds) {
+            boolean has = genres.contains(index.getGenreName(genreId));
+            if (matchAll && !has) {
+                return false;
+            } else if (!matchAll && has) {
+                return true;
+            }
+        }
+        return matchAll;
+    }
+
+    /**
+     * Counts each genre over the base rows among the first rows, by comparing genre names.
+     *
+     * @param baseRows The rows to count within.
+     * @param rowCount The number of leading rows that exist.
+     * @return The counts, indexed by genre ID.
+     */
+    private int[] bruteForceCounts(long[] baseRows, int rowCount) {
+        int[] counts = new int[index.getGenreCount()];
+        for (int row = 0; row < rowCount; row++) {
+            if (!isSet(baseRows, row)) {
+                continue;
+            }
+            for (String genre : rowGenres.get(row)) {
+                for (int genreId = 0; genreId < counts.length; genreId++) {
+                    if (index.getGenreName(genreId).equals(genre)) {
+                        counts[genreId]++;
+                    }
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Checks whether the first count entries of an array contain a value.
+     *
+     * @param values The array.
+     * @param count  The number of entries in use.
+     * @param value  The value.
+     * @return True if it is present.
+     */
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a row's bit is set.
+     *
+     * @param rowBits The row bitset.
+     * @param row     The row.
+     * @return True if set.
+     */
+    private static boolean isSet(long[] rowBits, int row) {
+        int word = row >>> 6;
+        return word < rowBits.length && (rowBits[word] & (1L << row)) != 0;
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * NetworkQualityEstimatorTest.java
+ * Function: Checks the connection class thresholds and that the estimate follows the network
+ * from POOR back up once small responses get fast and large transfers arrive quickly.
+ *
+ * @author Lorenz Aparentado
+ * @since 2023-12
+ */
+package com.example.spotifyartistexplorer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class NetworkQualityEstimatorTest {
+
+    private static final int SMALL_PAGE_BYTES = 12 * 1024;
+    private static final int IMAGE_BYTES = 256 * 1024;
+
+    private NetworkQualityEstimator estimator;
+
+    /**
+     * Starts every test from a fresh estimator.
+     */
+    @Before
+    public void setUp() {
+        estimator = new NetworkQualityEstimator();
+    }
+
+    /**
+     * The worse of latency and throughput decides the class.
+     */
+    @Test
+    public void classify_worseOfLatencyAndThroughputDecides() {
+        assertEquals(NetworkQualityEstimator.ConnectionClass.POOR,
+                NetworkQualityEstimator.classify(2000, 4 * 1024 * 1024));
+        assertEquals(NetworkQualityEstimator.ConnectionClass.POOR,
+                NetworkQualityEstimator.classify(50, 20 * 1024));
+        assertEquals(NetworkQualityEstimator.ConnectionClass.MODERATE,
+                NetworkQualityEstimator.classify(800, 4 * 1024 * 1024));
+        assertEquals(NetworkQualityEstimator.ConnectionClass.MODERATE,
+                NetworkQualityEstimator.classify(50, 100 * 1024));
+        assertEquals(NetworkQualityEstimator.ConnectionClass.GOOD,
+                NetworkQualityEstimator.classify(300, 4 * 1024 * 1024));
+        assertEquals(NetworkQualityEstimator.ConnectionClass.GOOD,
+                NetworkQualityEstimator.classify(50, 512 * 1024));
+        assertEquals(NetworkQualityEstimator.ConnectionClass.EXCELLENT,
+                NetworkQualityEstimator.classify(50, 4 * 1024 * 1024));
+    }
+
+    /**
+     * An unmeasured value never lowers the class, but EXCELLENT needs a measured throughput.
+     */
+    @Test
+    public void classify_unmeasuredValues() {
+        assertEquals(NetworkQualityEstimator.ConnectionClass.GOOD,
+                NetworkQualityEstimator.classify(50, Double.NaN));
+        assertEquals(NetworkQualityEstimator.ConnectionClass.POOR,
+                NetworkQualityEstimator.classify(2000, Double.NaN));
+        assertEquals(NetworkQualityEstimator.ConnectionClass.EXCELLENT,
+                NetworkQualityEstimator.classify(Double.NaN, 4 * 1024 * 1024));
+    }
+
+    /**
+     * Small search pages over a fast link are judged by their latency, not by dividing 12KB by
+     * the round trip, which would read as under 50KB/s.
+     */
+    @Test
+    public void recordRequest_smallPagesDoNotReadAsPoorThroughput() {
+        for (int i = 0; i < 10; i++) {
+            estimator.recordRequest(250, SMALL_PAGE_BYTES);
+        }
+
+        assertEquals(NetworkQualityEstimator.ConnectionClass.GOOD, estimator.getConnectionClass());
+    }
+
+    /**
+     * Large transfers are credited only with the time beyond the round trip.
+     */
+    @Test
+    public void recordRequest_largeTransfersNetOfLatency() {
+        for (int i = 0; i < 5; i++) {
+            estimator.recordRequest(150, SMALL_PAGE_BYTES);
+        }
+        // 256KB arriving 100ms after the round trip is 2.5MB/s, though 256KB/250ms is only 1MB/s
+        for (int i = 0; i < 5; i++) {
+            estimator.recordRequest(250, IMAGE_BYTES);
+        }
+
+        assertEquals(NetworkQualityEstimator.ConnectionClass.EXCELLENT, estimator.getConnectionClass());
+    }
+
+    /**
+     * A slow period drops the estimate to POOR, and it climbs back once the network recovers.
+     */
+    @Test
+    public void recordRequest_recoversFromPoor() {
+        for (int i = 0; i < 5; i++) {
+            estimator.recordRequest(2500, SMALL_PAGE_BYTES);
+            estimator.recordRequest(4000, IMAGE_BYTES);
+        }
+        assertEquals(NetworkQualityEstimator.ConnectionClass.POOR, estimator.getConnectionClass());
+
+        // Pages requested while POOR are small, so recovery must not depend on their size
+        estimator.recordRequest(120, NetworkQualityEstimator.ConnectionClass.POOR.getPageSize() * 1200);
+        assertNotEquals(NetworkQualityEstimator.ConnectionClass.EXCELLENT, estimator.getConnectionClass());
+        for (int i = 0; i < 15; i++) {
+            estimator.recordRequest(120, SMALL_PAGE_BYTES);
+            estimator.recordRequest(220, IMAGE_BYTES);
+        }
+
+        assertEquals(NetworkQualityEstimator.ConnectionClass.EXCELLENT, estimator.getConnectionClass());
+    }
+}
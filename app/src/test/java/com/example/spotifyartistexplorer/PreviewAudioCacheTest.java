@@ -0,0 +1,230 @@
+/**
+ * PreviewAudioCacheTest.java
+ * Function: Checks the handoff from a cached preview prefix to the network stream, using a
+ * temporary cache directory and a local HTTP server that serves byte ranges, or ignores them.
+ *
+ * @author Lorenz Aparentado
+ * @since 2023-12
+ */
+package com.example.spotifyartistexplorer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class PreviewAudioCacheTest {
+
+    /**
+     * Clip length: several times the cached prefix, and not a multiple of the read sizes.
+     */
+    private static final int CLIP_LENGTH = 300_001;
+
+    /**
+     * Length of the cached prefix, PREFETCH_BYTES in PreviewAudioCache.
+     */
+    private static final int PREFIX_LENGTH = 96 * 1024;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final byte[] clip = new byte[CLIP_LENGTH];
+    private final List<String> requestedRanges = new CopyOnWriteArrayList<>();
+    private HttpServer server;
+    private PreviewAudioCache cache;
+    private String rangedUrl;
+    private String unrangedUrl;
+
+    /**
+     * Starts a server with one clip that honours Range and one that always answers 200.
+     *
+     * @throws IOException If the server cannot start.
+     */
+    @Before
+    public void setUp() throws IOException {
+        for (int i = 0; i < clip.length; i++) {
+            clip[i] = (byte) (i * 31 + (i >>> 8));
+        }
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/ranged.mp3", exchange -> serve(exchange, true));
+        server.createContext("/unranged.mp3", exchange -> serve(exchange, false));
+        server.start();
+        String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        rangedUrl = baseUrl + "/ranged.mp3";
+        unrangedUrl = baseUrl + "/unranged.mp3";
+        cache = new PreviewAudioCache(temporaryFolder.newFolder("previews"));
+    }
+
+    /**
+     * Stops the server.
+     */
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    /**
+     * Without a cached prefix the whole clip streams from the network.
+     *
+     * @throws IOException If a read fails.
+     */
+    @Test
+    public void streamsUncachedClip() throws IOException {
+        try (PreviewAudioCache.PreviewDataSource dataSource = cache.openDataSource(rangedUrl)) {
+            assertArrayEquals(clip, readFully(dataSource, 0, CLIP_LENGTH, 8192));
+            assertEquals(CLIP_LENGTH, dataSource.getSize());
+            assertFalse(dataSource.isServedFromCache());
+        }
+    }
+
+    /**
+     * Sequential reads straddling the end of the prefix continue with a range request from
+     * exactly that byte.
+     *
+     * @throws IOException If a read fails.
+     */
+    @Test
+    public void continuesPastCachedPrefix() throws IOException {
+        cache.fetchPrefix(rangedUrl, new PreviewAudioCache.Prefetch());
+        requestedRanges.clear();
+
+        try (PreviewAudioCache.PreviewDataSource dataSource = cache.openDataSource(rangedUrl)) {
+            assertEquals(CLIP_LENGTH, dataSource.getSize());
+            assertArrayEquals(clip, readFully(dataSource, 0, CLIP_LENGTH, 10_000));
+            assertTrue(dataSource.isServedFromCache());
+        }
+        assertEquals(Arrays.asList("bytes=" + PREFIX_LENGTH + "-"), requestedRanges);
+    }
+
+    /**
+     * Reads at arbitrary offsets, in and out of the prefix and across its end, return the
+     * clip's bytes at those offsets.
+     *
+     * @throws IOException If a read fails.
+     */
+    @Test
+    public void readsAtArbitraryOffsets() throws IOException {
+        cache.fetchPrefix(rangedUrl, new PreviewAudioCache.Prefetch());
+        requestedRanges.clear();
+
+        int[][] reads = {{50_000, 4096}, {200_000, 5000}, {1, 3}, {PREFIX_LENGTH - 100, 300}, {CLIP_LENGTH - 10, 10}};
+        try (PreviewAudioCache.PreviewDataSource dataSource = cache.openDataSource(rangedUrl)) {
+            for (int[] read : reads) {
+                assertArrayEquals("read at " + read[0], Arrays.copyOfRange(clip, read[0], read[0] + read[1]),
+                        readFully(dataSource, read[0], read[1], read[1]));
+            }
+            byte[] buffer = new byte[16];
+            assertEquals(-1, dataSource.readAt(CLIP_LENGTH, buffer, 0, buffer.length));
+        }
+        assertEquals(Arrays.asList("bytes=200000-", "bytes=" + PREFIX_LENGTH + "-", "bytes=" + (CLIP_LENGTH - 10) + "-"),
+                requestedRanges);
+    }
+
+    /**
+     * A server that answers a range request with the whole clip still fills the prefix from its
+     * first bytes, but continuing past the prefix fails instead of serving the clip's start.
+     *
+     * @throws IOException If the prefetch or a cached read fails.
+     */
+    @Test
+    public void rejectsFullResponseToRangeRequest() throws IOException {
+        cache.fetchPrefix(unrangedUrl, new PreviewAudioCache.Prefetch());
+
+        try (PreviewAudioCache.PreviewDataSource dataSource = cache.openDataSource(unrangedUrl)) {
+            assertEquals(CLIP_LENGTH, dataSource.getSize());
+            assertArrayEquals(Arrays.copyOf(clip, PREFIX_LENGTH), readFully(dataSource, 0, PREFIX_LENGTH, 8192));
+            assertTrue(dataSource.isServedFromCache());
+            try {
+                dataSource.readAt(PREFIX_LENGTH, new byte[8192], 0, 8192);
+                fail("Expected the full response to be rejected");
+            } catch (IOException expected) {
+                // The server ignored the range
+            }
+        }
+    }
+
+    /**
+     * Without a cached prefix, a server ignoring ranges is fine for reading from the start.
+     *
+     * @throws IOException If a read fails.
+     */
+    @Test
+    public void streamsFromStartWithoutRangeSupport() throws IOException {
+        try (PreviewAudioCache.PreviewDataSource dataSource = cache.openDataSource(unrangedUrl)) {
+            assertArrayEquals(clip, readFully(dataSource, 0, CLIP_LENGTH, 8192));
+            assertFalse(dataSource.isServedFromCache());
+        }
+    }
+
+    /**
+     * Reads a span of the clip the way MediaPlayer does, accepting short reads.
+     *
+     * @param dataSource The data source.
+     * @param position   The first byte to read.
+     * @param length     The number of bytes to read.
+     * @param readSize   The size of each readAt call.
+     * @return The bytes read.
+     * @throws IOException If a read fails or the clip ends early.
+     */
+    private static byte[] readFully(PreviewAudioCache.PreviewDataSource dataSource, long position, int length,
+                                    int readSize) throws IOException {
+        byte[] bytes = new byte[length];
+        int filled = 0;
+        while (filled < length) {
+            int read = dataSource.readAt(position + filled, bytes, filled, Math.min(readSize, length - filled));
+            if (read <= 0) {
+                throw new IOException("Clip ended at " + (position + filled));
+            }
+            filled += read;
+        }
+        return bytes;
+    }
+
+    /**
+     * Serves the clip, honouring a "bytes=first-[last]" Range header if asked to.
+     *
+     * @param exchange     The exchange.
+     * @param honourRanges False to always answer 200 with the whole clip.
+     * @throws IOException If the response cannot be written.
+     */
+    private void serve(HttpExchange exchange, boolean honourRanges) throws IOException {
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        int first = 0;
+        int last = CLIP_LENGTH - 1;
+        boolean partial = honourRanges && range != null;
+        if (partial) {
+            requestedRanges.add(range);
+            String[] bounds = range.substring("bytes=".length()).split("-", -1);
+            first = Integer.parseInt(bounds[0]);
+            if (!bounds[1].isEmpty()) {
+                last = Math.min(last, Integer.parseInt(bounds[1]));
+            }
+            exchange.getResponseHeaders().set("Content-Range", "bytes " + first + "-" + last + "/" + CLIP_LENGTH);
+        }
+        int length = last - first + 1;
+        try (OutputStream out = exchange.getResponseBody()) {
+            exchange.sendResponseHeaders(partial ? 206 : 200, length);
+            out.write(clip, first, length);
+        } catch (IOException e) {
+            // The client stopped reading, e.g. after the prefix
+        }
+    }
+}
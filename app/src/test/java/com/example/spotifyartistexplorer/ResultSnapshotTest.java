@@ -0,0 +1,135 @@
+/**
+ * ResultSnapshotTest.java
+ * Function: Checks that a result snapshot survives a write and read, and that a corrupted,
+ * truncated or outdated snapshot file is rejected instead of restored.
+ *
+ * @author Lorenz Aparentado
+ * @since 2023-12
+ */
+package com.example.spotifyartistexplorer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.List;
+
+public class ResultSnapshotTest {
+
+    /**
+     * Offset of the version in the header, after the magic number.
+     */
+    private static final int VERSION_OFFSET = 4;
+    private static final int HEADER_SIZE = 20;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File file;
+
+    /**
+     * Writes a snapshot of two artists, one of them without genres or images.
+     *
+     * @throws IOException If the snapshot cannot be written.
+     */
+    @Before
+    public void setUp() throws IOException {
+        file = new File(temporaryFolder.getRoot(), "snapshot.bin");
+        List<Artist> artists = Arrays.asList(
+                new Artist("id1", "Bj\u00f6rk", "https://i.scdn.co/image/large1", "https://i.scdn.co/image/small1",
+                        2_500_000, new String[]{"art pop", "icelandic pop"}),
+                new Artist("id2", "Unknown Band", null, null, 0, new String[0]));
+        new ResultSnapshot("bj\u00f6rk", artists).write(file);
+    }
+
+    /**
+     * Every field of every artist, and the query, come back as written.
+     */
+    @Test
+    public void roundTripsQueryAndArtists() {
+        ResultSnapshot snapshot = ResultSnapshot.read(file);
+
+        assertNotNull(snapshot);
+        assertEquals("bj\u00f6rk", snapshot.getQuery());
+        assertEquals(2, snapshot.getArtists().size());
+        Artist first = snapshot.getArtists().get(0);
+        assertEquals("id1", first.getId());
+        assertEquals("Bj\u00f6rk", first.getName());
+        assertEquals("https://i.scdn.co/image/large1", first.getImageUrl());
+        assertEquals("https://i.scdn.co/image/small1", first.getThumbnailUrl());
+        assertEquals(2_500_000, first.getNumberOfFollowers());
+        assertArrayEquals(new String[]{"art pop", "icelandic pop"}, first.getGenres());
+        Artist second = snapshot.getArtists().get(1);
+        assertEquals("Unknown Band", second.getName());
+        assertEquals(0, second.getGenres().length);
+    }
+
+    /**
+     * A single flipped payload byte fails the checksum.
+     *
+     * @throws IOException If the file cannot be modified.
+     */
+    @Test
+    public void rejectsFlippedByte() throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            long offset = HEADER_SIZE + (randomAccessFile.length() - HEADER_SIZE) / 2;
+            randomAccessFile.seek(offset);
+            int value = randomAccessFile.read();
+            randomAccessFile.seek(offset);
+            randomAccessFile.write(value ^ 0x01);
+        }
+
+        assertNull(ResultSnapshot.read(file));
+    }
+
+    /**
+     * A file cut short, in the payload or in the header, is rejected.
+     *
+     * @throws IOException If the file cannot be truncated.
+     */
+    @Test
+    public void rejectsTruncatedFile() throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.setLength(randomAccessFile.length() - 1);
+        }
+        assertNull(ResultSnapshot.read(file));
+
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.setLength(HEADER_SIZE - 1);
+        }
+        assertNull(ResultSnapshot.read(file));
+    }
+
+    /**
+     * A snapshot written by an older version of the format is not read with the new layout.
+     *
+     * @throws IOException If the file cannot be modified.
+     */
+    @Test
+    public void rejectsOldVersion() throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.seek(VERSION_OFFSET);
+            randomAccessFile.writeShort(2);
+        }
+
+        assertNull(ResultSnapshot.read(file));
+    }
+
+    /**
+     * A missing file reads as no snapshot.
+     */
+    @Test
+    public void returnsNullForMissingFile() {
+        assertNull(ResultSnapshot.read(new File(temporaryFolder.getRoot(), "missing.bin")));
+    }
+}